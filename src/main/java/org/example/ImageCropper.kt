@@ -2,8 +2,30 @@ package org.example
 
 import org.opencv.core.*
 import org.opencv.imgproc.Imgproc
+import kotlin.math.ceil
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.roundToInt
 
 class ImageCropper {
+    private var proxyScaleFactor = 1.0
+
+    /**
+     * Configures the contour search to run on a downscaled proxy of the image instead of the full resolution.
+     * Grayscale conversion, Canny and the contour search get cheaper by about the square of the factor. The largest
+     * contour is scaled back up and the sign is cropped at full resolution, so the crop differs from the full
+     * resolution crop by about the factor in pixels at its borders. Defaults to 1, which searches at full resolution.
+     * @param proxyScaleFactor The factor by which the proxy is smaller than the image, at least 1.
+     * @return The current instance of [ImageCropper] for chaining.
+     */
+    fun withProxyScaleFactor(proxyScaleFactor: Double): ImageCropper {
+        if (proxyScaleFactor < 1.0) {
+            throw IllegalArgumentException("The proxy scale factor must be at least 1")
+        }
+        this.proxyScaleFactor = proxyScaleFactor
+        return this
+    }
+
     /**
      * Crops the sign from the background, retaining only the pixels inside the largest contour.
      * Crops the image to the bounding rectangle of the largest contour.
@@ -11,27 +33,8 @@ class ImageCropper {
      * @return The cropped sign with all pixels outside the largest contour made transparent.
      */
     fun cropSign(originalSign: Mat): Mat {
-        // Convert the image to binary based on the grayscale
-        val gray = Mat()
-        Imgproc.cvtColor(originalSign, gray, Imgproc.COLOR_RGBA2GRAY)
-
-        val contours = getAllContoursAdapting(gray, 100.0, 200.0)
-
-        // Find the largest contour
-        var largestContour: MatOfPoint? = null
-        var largestArea = Double.MIN_VALUE
-        for (contour in contours) {
-            val area = Imgproc.contourArea(contour)
-            if (area > largestArea) {
-                largestArea = area
-                largestContour = contour
-            }
-        }
-
         // If no contour is found, return the original sign
-        if (largestContour == null) {
-            return originalSign
-        }
+        val largestContour = findLargestContour(originalSign) ?: return originalSign
 
         // Get the bounding rectangle of the largest contour
         val boundingRect = Imgproc.boundingRect(largestContour)
@@ -47,19 +50,108 @@ class ImageCropper {
         }
         offsetContour.fromList(offsetPoints)
         Imgproc.drawContours(mask, listOf(offsetContour), -1, Scalar(255.0), Imgproc.FILLED)
+        offsetContour.release()
+        largestContour.release()
 
         // Apply the mask to the cropped image to make the outside transparent
         val result = Mat.zeros(cropped.size(), CvType.CV_8UC4)
-        for (row in 0 until cropped.rows()) {
-            for (col in 0 until cropped.cols()) {
-                if (mask.get(row, col)[0] > 0) {
-                    val pixel = cropped.get(row, col)
-                    result.put(row, col, pixel[0], pixel[1], pixel[2], pixel[3])
-                }
+        cropped.copyTo(result, mask)
+        mask.release()
+        cropped.release()
+
+        return result
+    }
+
+    /**
+     * Finds the bounding rectangle of the sign, which is the region [cropSign] crops.
+     * @param originalSign The original sign image in RGBA format.
+     * @return The bounding rectangle of the largest contour, or the whole image if no contour has an area.
+     */
+    fun findSignBounds(originalSign: Mat): Rect {
+        val largestContour = findLargestContour(originalSign) ?: return Rect(0, 0, originalSign.cols(), originalSign.rows())
+        val bounds = Imgproc.boundingRect(largestContour)
+        largestContour.release()
+        return bounds
+    }
+
+    /**
+     * Finds the largest contour of the sign in full resolution coordinates, searching on the proxy if configured.
+     * @param originalSign The original sign image in RGBA format.
+     * @return The largest contour, or null if no contour has an area.
+     */
+    private fun findLargestContour(originalSign: Mat): MatOfPoint? {
+        // Small images are searched at full resolution, the proxy would lose the outline of the sign
+        val scaleFactor = min(proxyScaleFactor, min(originalSign.rows(), originalSign.cols()) / MIN_PROXY_SIZE.toDouble())
+        if (scaleFactor <= 1.0) {
+            return findLargestContourAtFullResolution(originalSign)
+        }
+
+        val proxy = Mat()
+        Imgproc.resize(originalSign, proxy, Size(max(1.0, (originalSign.cols() / scaleFactor).roundToInt().toDouble()),
+            max(1.0, (originalSign.rows() / scaleFactor).roundToInt().toDouble())), 0.0, 0.0, Imgproc.INTER_AREA)
+        // Map the centers of the proxy pixels back to the image and clip them to it
+        val scaleX = originalSign.cols().toDouble() / proxy.cols()
+        val scaleY = originalSign.rows().toDouble() / proxy.rows()
+        val proxyContour = try {
+            findLargestContourAtFullResolution(proxy)
+        } finally {
+            proxy.release()
+        } ?: return null
+
+        val contour = MatOfPoint()
+        contour.fromList(proxyContour.toArray().map {
+            Point(
+                ((it.x + 0.5) * scaleX - 0.5).roundToInt().coerceIn(0, originalSign.cols() - 1).toDouble(),
+                ((it.y + 0.5) * scaleY - 0.5).roundToInt().coerceIn(0, originalSign.rows() - 1).toDouble()
+            )
+        })
+        proxyContour.release()
+        return padToProxyPixels(contour, ceil(max(scaleX, scaleY) / 2).toInt(), originalSign)
+    }
+
+    private fun findLargestContourAtFullResolution(originalSign: Mat): MatOfPoint? {
+        // Convert the image to binary based on the grayscale
+        val gray = Mat()
+        Imgproc.cvtColor(originalSign, gray, Imgproc.COLOR_RGBA2GRAY)
+
+        val contours = try {
+            getAllContoursAdapting(gray, 100.0, 200.0)
+        } finally {
+            gray.release()
+        }
+
+        // Find the largest contour
+        var largestContour: MatOfPoint? = null
+        var largestArea = Double.MIN_VALUE
+        for (contour in contours) {
+            val area = Imgproc.contourArea(contour)
+            if (area > largestArea) {
+                largestArea = area
+                largestContour = contour
             }
         }
+        // Only the largest contour is returned, the native memory of all others is released right away
+        contours.filter { it !== largestContour }.forEach { it.release() }
+        return largestContour
+    }
 
-        return result
+    /**
+     * Moves every point of a scaled contour away from the center of its bounding rectangle by half a proxy pixel,
+     * since a proxy pixel on the outline covers several pixels of the image and the contour runs through their centers.
+     */
+    private fun padToProxyPixels(contour: MatOfPoint, padding: Int, image: Mat): MatOfPoint {
+        val bounds = Imgproc.boundingRect(contour)
+        val centerX = bounds.x + bounds.width / 2.0
+        val centerY = bounds.y + bounds.height / 2.0
+        val padded = MatOfPoint()
+        padded.fromList(contour.toArray().map {
+            Point(
+                (it.x + padding * Math.signum(it.x - centerX)).coerceIn(0.0, image.cols() - 1.0),
+                (it.y + padding * Math.signum(it.y - centerY)).coerceIn(0.0, image.rows() - 1.0)
+            )
+        })
+        contour.release()
+        return padded
     }
 
     /**
@@ -76,16 +168,29 @@ class ImageCropper {
         }
         // Apply Canny edge detection
         val edges = Mat()
-        Imgproc.Canny(grayscaleSign, edges, threshold1, threshold2)
-
-        // Find contours
-        val contours = ArrayList<MatOfPoint>()
         val hierarchy = Mat()
-        Imgproc.findContours(edges, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE)
+        val contours = ArrayList<MatOfPoint>()
+        try {
+            Imgproc.Canny(grayscaleSign, edges, threshold1, threshold2)
+
+            // Find contours
+            Imgproc.findContours(edges, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE)
+        } finally {
+            // Released before the retry, every recursion level would hold its own edges otherwise
+            edges.release()
+            hierarchy.release()
+        }
 
         if (contours.isEmpty()) {
             return getAllContoursAdapting(grayscaleSign, threshold1 / 1.5, threshold2 / 1.5)
         }
         return contours
     }
+
+    companion object {
+        /**
+         * The minimum number of pixels of the shorter side of the proxy image.
+         */
+        private const val MIN_PROXY_SIZE = 32
+    }
 }
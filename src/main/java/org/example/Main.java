@@ -4,20 +4,54 @@ import kotlin.Pair;
 import nu.pattern.OpenCV;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
+import org.deeplearning4j.util.ModelSerializer;
+import org.example.benchmark.CropProxyBenchmark;
+import org.example.benchmark.EndToEndBenchmark;
+import org.example.calibration.ThreadCalibration;
+import org.example.calibration.ThreadCalibrator;
+import org.example.daemon.WarmDaemon;
+import org.example.detection.Detection;
+import org.example.detection.SignDetector;
+import org.example.deep_learing_network.ActivationProfiler;
+import org.example.deep_learing_network.CascadePredictor;
+import org.example.deep_learing_network.CompactModelExporter;
+import org.example.deep_learing_network.CrossValidator;
+import org.example.deep_learing_network.ConvolutionBlock;
+import org.example.deep_learing_network.ConvolutionalModelBuilder;
 import org.example.deep_learing_network.DataSetBuilder;
+import org.example.deep_learing_network.Distiller;
 import org.example.deep_learing_network.Evaluator;
+import org.example.deep_learing_network.IncrementalTrainer;
+import org.example.deep_learing_network.LearningRateComparison;
 import org.example.deep_learing_network.ModelBuilder;
 import org.example.deep_learing_network.ModelBuilderWithParametricSigmoid;
+import org.example.deep_learing_network.ParallelTrainer;
+import org.example.deep_learing_network.PrecisionBenchmark;
+import org.example.deep_learing_network.PruningBenchmark;
+import org.example.deep_learing_network.Resolution;
+import org.example.deep_learing_network.TrainingCandidate;
+import org.example.deep_learing_network.WarmStartRegistry;
+import org.example.distributed.DataParallelCoordinator;
+import org.example.distributed.DataParallelWorker;
+import org.example.experiment.ExperimentRunner;
+import org.example.image_loader.ImageDeduplicator;
 import org.example.image_loader.ImageLoader;
 import org.example.image_loader.ImageLoaderResult;
+import org.example.image_loader.ImagePack;
+import org.example.image_loader.ImagePackWriter;
 import org.example.image_loader.LoadableImage;
+import org.example.inference.CompactModel;
+import org.example.inference.Quantization;
 import org.nd4j.evaluation.classification.Evaluation;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.dataset.DataSet;
+import org.opencv.core.Mat;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -27,8 +61,84 @@ public class Main {
     private static final int SCALE_TARGET_PIXEL_SIZE_ROWS = 60;
     private static final int SCALE_TARGET_PIXEL_SIZE_COLS = 80;
     private static final boolean REGENERATE_DATA = false; // Set to false to load datasets from disk
+    private static final int NUM_EPOCHS = 350;
+    // Resolutions stored next to each other when the datasets are regenerated, must contain the default resolution
+    private static final List<Resolution> DATASET_RESOLUTIONS = List.of(
+            new Resolution(SCALE_TARGET_PIXEL_SIZE_ROWS / 2, SCALE_TARGET_PIXEL_SIZE_COLS / 2),
+            new Resolution(SCALE_TARGET_PIXEL_SIZE_ROWS, SCALE_TARGET_PIXEL_SIZE_COLS),
+            new Resolution(SCALE_TARGET_PIXEL_SIZE_ROWS * 2, SCALE_TARGET_PIXEL_SIZE_COLS * 2));
+    private static final boolean DEDUPLICATE_IMAGES = true; // Set to false to keep near-identical frames of the same sign
+    private static final String HASH_CACHE_FILE_NAME = "perceptual_hashes.txt";
+    private static final double CROP_PROXY_SCALE_FACTOR = 1.0; // Set to e.g. 4 to search the sign contour on a 4x smaller image
+    private static final String IMAGE_PACK_FILE_NAME = "images.pack"; // Used instead of the image directory when it exists in the dataset folder
+    private static final boolean USE_SUCCESSIVE_HALVING = false; // Set to true to stop training unpromising candidates early
+    private static final int CROSS_VALIDATION_FOLDS = 0; // Set to e.g. 5 to compare the candidates with k-fold cross-validation
+    private static final boolean COMPARE_LEARNING_RATE_FINDER = false; // Set to true to report the epochs saved by the learning rate range test
+    private static final boolean WARM_START_SWEEPS = false; // Set to true to start configurations of the same shape from the closest trained one
+    private static final double WARM_START_EPOCH_FRACTION = 0.3; // Fraction of NUM_EPOCHS trained after a warm start
+    private static final boolean CALIBRATE_THREADS = false; // Set to true to apply the thread counts measured for this machine at startup
+    private static final String THREAD_CALIBRATION_FILE_NAME = "thread_calibration.json"; // Reused until the number of cores changes
+    private static final boolean PROFILE_ACTIVATION_FUNCTIONS = false; // Set to true to rank activation functions by accuracy per millisecond
+    private static final List<Pair<Integer, Activation>> STANDARD_HIDDEN_LAYER_CONFIG = List.of(
+            new Pair<>(500, Activation.RELU),
+            new Pair<>(250, Activation.RELU),
+            new Pair<>(128, Activation.RELU),
+            new Pair<>(64, Activation.RELU));
+    private static final List<Pair<Integer, Activation>> STUDENT_HIDDEN_LAYER_CONFIG = List.of(
+            new Pair<>(64, Activation.RELU));
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            switch (args[0]) {
+                case "export" -> exportCompactModel(args);
+                case "daemon" -> new WarmDaemon(args.length > 1 ? Integer.parseInt(args[1]) : WarmDaemon.DEFAULT_PORT).run();
+                case "daemon-job" -> {
+                    if (args.length < 2) {
+                        throw new IllegalArgumentException("Usage: daemon-job <job as JSON> [port]");
+                    }
+                    System.out.println(WarmDaemon.sendJob(args[1], args.length > 2 ? Integer.parseInt(args[2]) : WarmDaemon.DEFAULT_PORT));
+                }
+                case "pack" -> {
+                    if (args.length < 3) {
+                        throw new IllegalArgumentException("Usage: pack <corpus directory> <pack file>");
+                    }
+                    int packedImages = new ImagePackWriter().pack(new File(args[1]), Path.of(args[2]));
+                    System.out.println("Packed " + packedImages + " images into " + args[2]);
+                }
+                case "train-incremental" -> trainIncrementally(args);
+                case "train-distributed" -> trainDistributed(args);
+                case "train-worker" -> new DataParallelWorker(Integer.parseInt(args[1]), Integer.parseInt(args[2])).run();
+                case "benchmark-parallel" -> benchmarkParallelTraining();
+                case "benchmark-e2e" -> benchmarkEndToEnd(args);
+                case "detect" -> detectSigns(args);
+                case "benchmark-pruning" -> benchmarkPruning(args);
+                case "distill" -> distill(args);
+                case "cascade" -> evaluateCascade(args);
+                case "benchmark-crop" -> {
+                    OpenCV.loadShared();
+                    List<Double> proxyScaleFactors = args.length > 1
+                            ? Arrays.stream(args, 1, args.length).map(Double::parseDouble).toList()
+                            : List.of(2.0, 4.0, 8.0);
+                    new CropProxyBenchmark(new ImageLoader(0, 0).loadAllImages()).run(proxyScaleFactors);
+                }
+                case "experiment" -> {
+                    if (args.length < 2) {
+                        throw new IllegalArgumentException("Usage: experiment <spec as JSON file> [journal file]");
+                    }
+                    Path journalFile = Path.of(args.length > 2 ? args[2] : args[1] + ".journal.jsonl");
+                    new ExperimentRunner(journalFile).run(Path.of(args[1]));
+                }
+                case "calibrate-threads" -> {
+                    OpenCV.loadShared();
+                    createThreadCalibrator().calibrate(getThreadCalibrationFile());
+                }
+                case "benchmark-precision" -> new PrecisionBenchmark(createDefaultModelBuilder().withHiddenLayerConfig(STANDARD_HIDDEN_LAYER_CONFIG), 10)
+                        .run(loadDataSetFromDisk("trainingData.bin"));
+                default -> throw new IllegalArgumentException("Unknown command: " + args[0]);
+            }
+            return;
+        }
+
         int imagesForTraining = 50;
         int imagesForTesting = 10;
 
@@ -40,12 +150,24 @@ public class Main {
         File trainingDataFile = new File(parentFolderLocation, "trainingData.bin");
         File testingDataFile = new File(parentFolderLocation, "testingData.bin");
 
+        // Split the cores between the preprocessing workers, OpenCV and ND4J instead of letting each use all of them
+        int preprocessingWorkers = 1;
+        if (CALIBRATE_THREADS) {
+            ThreadCalibration threadCalibration = createThreadCalibrator().loadOrCalibrate(getThreadCalibrationFile());
+            threadCalibration.apply();
+            preprocessingWorkers = threadCalibration.preprocessingWorkers();
+        }
+
         DataSet trainingData;
         DataSet testingData;
 
         if (REGENERATE_DATA) {
-            // Load Images
-            ImageLoader loader = new ImageLoader(imagesForTraining, imagesForTesting);
+            // Load Images, from the image pack if one was created with the pack command
+            ImageLoader loader = createImageLoader(parentFolderLocation, imagesForTraining, imagesForTesting);
+            if (DEDUPLICATE_IMAGES) {
+                loader.withDeduplication(new ImageDeduplicator()
+                        .withHashCache(new File(parentFolderLocation, HASH_CACHE_FILE_NAME).toPath()), true);
+            }
             ImageLoaderResult loaderResult = loader.loadImages();
 
             for (LoadableImage image : loaderResult.imagesForTraining()) {
@@ -53,16 +175,24 @@ public class Main {
             }
 
             // Prepare Training and Testing Data
-            DataSetBuilder defaultDataSetBuilder = new DataSetBuilder();
-            defaultDataSetBuilder.withTargetDimensions(SCALE_TARGET_PIXEL_SIZE_ROWS, SCALE_TARGET_PIXEL_SIZE_COLS);
-            defaultDataSetBuilder.withNumClasses(SignClassification.values().length);
+            DataSetBuilder defaultDataSetBuilder = createDefaultDataSetBuilder().withWorkers(preprocessingWorkers);
 
-            trainingData = defaultDataSetBuilder.withImages(loaderResult.imagesForTraining()).build();
-            testingData = defaultDataSetBuilder.withImages(loaderResult.imagesForTesting()).build();
+            // Every image is decoded and cropped once and scaled to all resolutions of the sweep, so no crop cache is needed
+            Resolution defaultResolution = new Resolution(SCALE_TARGET_PIXEL_SIZE_ROWS, SCALE_TARGET_PIXEL_SIZE_COLS);
+            Map<Resolution, DataSet> trainingDataSets = defaultDataSetBuilder.withImages(loaderResult.imagesForTraining())
+                    .buildMultiResolution(DATASET_RESOLUTIONS);
+            Map<Resolution, DataSet> testingDataSets = defaultDataSetBuilder.withImages(loaderResult.imagesForTesting())
+                    .buildMultiResolution(DATASET_RESOLUTIONS);
+            trainingData = trainingDataSets.get(defaultResolution);
+            testingData = testingDataSets.get(defaultResolution);
 
-            // Save datasets to disk
+            // Save datasets to disk, the default resolution additionally under the name used by all other commands
             trainingData.save(trainingDataFile);
             testingData.save(testingDataFile);
+            for (Resolution resolution : DATASET_RESOLUTIONS) {
+                trainingDataSets.get(resolution).save(new File(parentFolderLocation, resolution.dataSetFileName("trainingData")));
+                testingDataSets.get(resolution).save(new File(parentFolderLocation, resolution.dataSetFileName("testingData")));
+            }
             System.out.println("Datasets saved to disk at: " + parentFolderLocation);
         } else {
             // Load datasets from disk
@@ -73,13 +203,9 @@ public class Main {
             System.out.println("Datasets loaded from disk at: " + parentFolderLocation);
         }
 
-        ModelBuilder defaultModelBuilder = new ModelBuilder()
-                .withInputSize(SCALE_TARGET_PIXEL_SIZE_ROWS * SCALE_TARGET_PIXEL_SIZE_COLS * 4)
-                .withOutputSize(SignClassification.values().length)
-                .withOutputLayerActivation(Activation.SOFTMAX)
-                .withLearningRate(0.00001)
-                .withNumEpochs(350)
-                .withLogFrequency(10);
+        ModelBuilder defaultModelBuilder = createDefaultModelBuilder();
+        WarmStartRegistry warmStartRegistry = WARM_START_SWEEPS ? new WarmStartRegistry(2, 8) : null;
+        defaultModelBuilder.withWarmStart(warmStartRegistry, WARM_START_EPOCH_FRACTION);
 
 
         TestDriver testDriver = new TestDriver(new TestFunction() {
@@ -117,11 +243,372 @@ public class Main {
                 Evaluator evaluator = new Evaluator(model, testingData);
                 return evaluator.getEvaluationResult();
             }
+
+            @Override
+            public Evaluation testConvolutionalConfiguration(List<ConvolutionBlock> convolutionBlocks) {
+                ConvolutionalModelBuilder modelBuilder = ConvolutionalModelBuilder.createFromDefaultModelBuilder(defaultModelBuilder)
+                        .withInputShape(4, SCALE_TARGET_PIXEL_SIZE_ROWS, SCALE_TARGET_PIXEL_SIZE_COLS)
+                        .withConvolutionBlocks(convolutionBlocks);
+                MultiLayerNetwork model = modelBuilder.buildAndTrain(trainingData);
+                Evaluator evaluator = new Evaluator(model, modelBuilder.toConvolutionalDataSet(testingData));
+                return evaluator.getEvaluationResult();
+            }
+
+            @Override
+            public TrainingCandidate createHiddenLayersActivationFunctionCandidate(Activation activationFunction) {
+                return new TrainingCandidate(defaultModelBuilder.withHiddenLayerConfig(List.of(new Pair<Integer, Activation>(500, activationFunction),
+                        new Pair<Integer, Activation>(250, activationFunction),
+                        new Pair<Integer, Activation>(128, activationFunction),
+                        new Pair<Integer, Activation>(64, activationFunction))), trainingData, testingData);
+            }
+
+            @Override
+            public TrainingCandidate createHiddenLayersActivationFunctionCandidate(List<Pair<Integer, Activation>> hiddenLayerConfig) {
+                return new TrainingCandidate(defaultModelBuilder.withHiddenLayerConfig(hiddenLayerConfig), trainingData, testingData);
+            }
+
+            @Override
+            public TrainingCandidate createParameterAdjustmentInSigmoidFunctionCandidate(double parameter) {
+                return new TrainingCandidate(ModelBuilderWithParametricSigmoid.createFromDefaultModelBuilder(defaultModelBuilder.withHiddenLayerConfig(
+                        List.of(new Pair<>(500, Activation.SIGMOID),
+                                new Pair<>(250, Activation.SIGMOID),
+                                new Pair<>(128, Activation.SIGMOID),
+                                new Pair<>(64, Activation.SIGMOID))
+                )).withAlpha(parameter), trainingData, testingData);
+            }
         });
+        if (USE_SUCCESSIVE_HALVING) {
+            testDriver.withSuccessiveHalving(new SuccessiveHalvingSearch(30, NUM_EPOCHS, 3));
+        }
+        testDriver.withWarmStartRegistry(warmStartRegistry);
+        if (CROSS_VALIDATION_FOLDS > 1) {
+            testDriver.withCrossValidation(new CrossValidator(DataSet.merge(List.of(trainingData, testingData)), CROSS_VALIDATION_FOLDS));
+        }
+        if (PROFILE_ACTIVATION_FUNCTIONS) {
+            testDriver.withActivationProfiler(new ActivationProfiler(
+                    STANDARD_HIDDEN_LAYER_CONFIG.stream().map(Pair::getFirst).toList(), trainingData.numExamples()));
+        }
 
+        if (COMPARE_LEARNING_RATE_FINDER) {
+            testDriver.testLearningRateRangeFinder(new LearningRateComparison(10, true));
+        }
         testDriver.determineBestHiddenLayersActivationFunction();
         testDriver.testEffectivityOfDifferentHiddenLayerActivationFunction();
         testDriver.testParameterAdjustmentInSigmoidFunction();
+        testDriver.testConvolutionalConfigurations();
+    }
+
+    /**
+     * Exports a saved model to the compact model format and checks the outputs of the compact model against ND4J
+     * on the testing data.
+     * Usage: {@code export <saved model> <target file> [FLOAT16|INT8]}
+     *
+     * @param args The command line arguments.
+     */
+    private static void exportCompactModel(String[] args) {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: export <saved model> <target file> [FLOAT16|INT8]");
+        }
+        Quantization quantization = args.length > 3 ? Quantization.valueOf(args[3]) : Quantization.FLOAT16;
+        Path targetFile = Path.of(args[2]);
+
+        DataSet testingData = loadDataSetFromDisk("testingData.bin");
+
+        try {
+            MultiLayerNetwork model = ModelSerializer.restoreMultiLayerNetwork(new File(args[1]));
+            CompactModelExporter exporter = new CompactModelExporter();
+            exporter.export(model, targetFile, quantization);
+            exporter.verifyParity(model, CompactModel.load(targetFile), testingData);
+        } catch (IOException e) {
+            throw new RuntimeException("Error exporting " + args[1], e);
+        }
+    }
+
+    /**
+     * Trains the model saved in a file on the images added to the corpus since it was last trained, or trains a new
+     * model on the whole corpus if the file does not exist yet.
+     * Usage: {@code train-incremental <model file> [fine-tuning epochs]}
+     *
+     * @param args The command line arguments.
+     */
+    private static void trainIncrementally(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: train-incremental <model file> [fine-tuning epochs]");
+        }
+        OpenCV.loadShared();
+
+        IncrementalTrainer trainer = new IncrementalTrainer(
+                createDefaultModelBuilder().withHiddenLayerConfig(STANDARD_HIDDEN_LAYER_CONFIG), createDefaultDataSetBuilder());
+        if (args.length > 2) {
+            trainer.withFineTuningEpochs(Integer.parseInt(args[2]));
+        }
+        String parentFolderLocation = loadParentFolderLocation("file_paths/dataset_paths.txt");
+        trainer.update(new File(args[1]), createImageLoader(parentFolderLocation, 0, 0).loadAllImages());
+    }
+
+    /**
+     * Creates the image loader of the corpus, which reads the images from the image pack in the dataset folder if one
+     * was created with the pack command, and from the image directory otherwise.
+     *
+     * @param parentFolderLocation The dataset folder.
+     * @param imagesForTraining    The number of training images.
+     * @param imagesForTesting     The number of testing images.
+     * @return The image loader.
+     */
+    private static ImageLoader createImageLoader(String parentFolderLocation, int imagesForTraining, int imagesForTesting) {
+        ImageLoader loader = new ImageLoader(imagesForTraining, imagesForTesting);
+        File imagePackFile = new File(parentFolderLocation, IMAGE_PACK_FILE_NAME);
+        if (imagePackFile.exists()) {
+            try {
+                loader.withImagePack(ImagePack.open(imagePackFile.toPath()));
+            } catch (IOException e) {
+                throw new RuntimeException("Error opening " + imagePackFile, e);
+            }
+        }
+        return loader;
+    }
+
+    /**
+     * Trains the standard model with data parallelism across several worker processes and compares its accuracy on the
+     * testing data with the same model trained in a single process.
+     * Usage: {@code train-distributed <workers> [averaging frequency]}
+     *
+     * @param args The command line arguments.
+     */
+    private static void trainDistributed(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: train-distributed <workers> [averaging frequency]");
+        }
+        DataSet trainingData = loadDataSetFromDisk("trainingData.bin");
+        DataSet testingData = loadDataSetFromDisk("testingData.bin");
+        ModelBuilder modelBuilder = createDefaultModelBuilder().withHiddenLayerConfig(STANDARD_HIDDEN_LAYER_CONFIG);
+
+        DataParallelCoordinator coordinator = new DataParallelCoordinator(modelBuilder, Integer.parseInt(args[1]));
+        if (args.length > 2) {
+            coordinator.withAveragingFrequency(Integer.parseInt(args[2]));
+        }
+        Evaluation distributed = new Evaluator(coordinator.train(trainingData), testingData).getEvaluationResult();
+        Evaluation singleProcess = new Evaluator(modelBuilder.buildAndTrain(trainingData), testingData).getEvaluationResult();
+        System.out.println("Accuracy with " + args[1] + " workers: " + distributed.accuracy()
+                + ", in a single process: " + singleProcess.accuracy());
+    }
+
+    /**
+     * Prints the throughput of the in-process parallel training at different thread counts, then trains the standard
+     * model with the auto-tuned thread count and prints its accuracy on the testing data.
+     */
+    private static void benchmarkParallelTraining() {
+        DataSet trainingData = loadDataSetFromDisk("trainingData.bin");
+        DataSet testingData = loadDataSetFromDisk("testingData.bin");
+        ParallelTrainer trainer = new ParallelTrainer(createDefaultModelBuilder().withHiddenLayerConfig(STANDARD_HIDDEN_LAYER_CONFIG));
+        trainer.printScalingReport(trainingData);
+
+        Evaluation evaluation = new Evaluator(trainer.train(trainingData), testingData).getEvaluationResult();
+        System.out.println("Accuracy of the parallel trained model: " + evaluation.accuracy());
+    }
+
+    /**
+     * Benchmarks loading, preprocessing, training and inference on synthetic corpora and writes the results as JSON.
+     * Usage: {@code benchmark-e2e <work directory> [result file] [corpus sizes...]}, the sizes default to 1000 and 10000
+     * images. Every corpus is preprocessed and trained on in full, at 19,200 features per image that is about 77 MB of
+     * heap and the same again of off-heap memory per 1000 images, so a 100000 image run needs about 16 GB and has to
+     * be requested explicitly.
+     *
+     * @param args The command line arguments.
+     */
+    private static void benchmarkEndToEnd(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: benchmark-e2e <work directory> [result file] [corpus sizes...]");
+        }
+        OpenCV.loadShared();
+
+        File workDirectory = new File(args[1]);
+        Path resultFile = args.length > 2 ? Path.of(args[2]) : new File(workDirectory, "benchmark.json").toPath();
+        List<Integer> corpusSizes = args.length > 3
+                ? Arrays.stream(args, 3, args.length).map(Integer::parseInt).toList()
+                : List.of(1_000, 10_000);
+        new EndToEndBenchmark(workDirectory, createDefaultModelBuilder().withHiddenLayerConfig(STANDARD_HIDDEN_LAYER_CONFIG),
+                createDefaultDataSetBuilder()).run(corpusSizes, resultFile);
+    }
+
+    /**
+     * Detects and classifies the signs in full scene images with a saved dense model and prints the bounding boxes.
+     * Usage: {@code detect <saved model> <scene image>...}
+     *
+     * @param args The command line arguments.
+     */
+    private static void detectSigns(String[] args) {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: detect <saved model> <scene image>...");
+        }
+        OpenCV.loadShared();
+
+        MultiLayerNetwork model;
+        try {
+            model = ModelSerializer.restoreMultiLayerNetwork(new File(args[1]));
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading the model from " + args[1], e);
+        }
+        List<String> scenePaths = Arrays.asList(args).subList(2, args.length);
+        List<Mat> scenes = scenePaths.stream().map(path -> new LoadableImage(path, null).loadMaterial()).toList();
+
+        SignDetector detector = new SignDetector(model, createDefaultModelBuilder(), createDefaultDataSetBuilder());
+        List<List<Detection>> detections = detector.detectAll(scenes);
+        for (int i = 0; i < scenes.size(); i++) {
+            System.out.println(scenePaths.get(i) + ":");
+            for (Detection detection : detections.get(i)) {
+                System.out.println("  " + detection.classification() + " at " + detection.boundingBox()
+                        + String.format(" (%.3f)", detection.confidence()));
+            }
+        }
+    }
+
+    /**
+     * Prints the accuracy, compact model latency and size of a saved dense model at several sparsity levels of its
+     * first layer. Usage: {@code benchmark-pruning <saved model> [fine-tuning epochs]}
+     *
+     * @param args The command line arguments.
+     */
+    private static void benchmarkPruning(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: benchmark-pruning <saved model> [fine-tuning epochs]");
+        }
+        MultiLayerNetwork model;
+        try {
+            model = ModelSerializer.restoreMultiLayerNetwork(new File(args[1]), true);
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading the model from " + args[1], e);
+        }
+        int fineTuningEpochs = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        new PruningBenchmark(createDefaultModelBuilder(), fineTuningEpochs, Quantization.FLOAT16)
+                .run(model, loadDataSetFromDisk("trainingData.bin"), loadDataSetFromDisk("testingData.bin"));
+    }
+
+    /**
+     * Distills a saved dense teacher model into the smaller student configuration, prints how both compare on the
+     * testing data and optionally saves the student.
+     * Usage: {@code distill <saved teacher model> [temperature] [student model file]}
+     *
+     * @param args The command line arguments.
+     */
+    private static void distill(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: distill <saved teacher model> [temperature] [student model file]");
+        }
+        MultiLayerNetwork teacher;
+        try {
+            teacher = ModelSerializer.restoreMultiLayerNetwork(new File(args[1]));
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading the model from " + args[1], e);
+        }
+        Distiller distiller = new Distiller(teacher, createDefaultModelBuilder().withHiddenLayerConfig(STUDENT_HIDDEN_LAYER_CONFIG));
+        if (args.length > 2) {
+            distiller.withTemperature(Double.parseDouble(args[2]));
+        }
+        MultiLayerNetwork student = distiller.distill(loadDataSetFromDisk("trainingData.bin"));
+        distiller.printComparison(student, loadDataSetFromDisk("testingData.bin"));
+        if (args.length > 3) {
+            try {
+                ModelSerializer.writeModel(student, new File(args[3]), false);
+            } catch (IOException e) {
+                throw new RuntimeException("Error saving the student model to " + args[3], e);
+            }
+        }
+    }
+
+    /**
+     * Evaluates a cascade of a small and a large saved model on the testing data, for one or several confidence
+     * thresholds. The small model may be trained on a lower resolution saved by the multi-resolution build.
+     * Usage: {@code cascade <small model> <large model> [small model resolution, e.g. 30x40] [thresholds...]}
+     *
+     * @param args The command line arguments.
+     */
+    private static void evaluateCascade(String[] args) {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: cascade <small model> <large model> [small model resolution, e.g. 30x40] [thresholds...]");
+        }
+        MultiLayerNetwork smallModel;
+        MultiLayerNetwork largeModel;
+        try {
+            smallModel = ModelSerializer.restoreMultiLayerNetwork(new File(args[1]));
+            largeModel = ModelSerializer.restoreMultiLayerNetwork(new File(args[2]));
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading the models", e);
+        }
+
+        DataSet largeTestingData = loadDataSetFromDisk("testingData.bin");
+        DataSet smallTestingData = largeTestingData;
+        if (args.length > 3) {
+            String[] dimensions = args[3].split("x");
+            Resolution resolution = new Resolution(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+            smallTestingData = loadDataSetFromDisk(resolution.dataSetFileName("testingData"));
+        }
+        List<Double> thresholds = args.length > 4
+                ? Arrays.stream(args, 4, args.length).map(Double::parseDouble).toList()
+                : List.of(0.5, 0.7, 0.9, 0.95, 0.99);
+
+        System.out.println("---------------------------------Model Cascade---------------------------------");
+        System.out.println("Small model: " + smallModel.numParams() + " parameters, large model: " + largeModel.numParams() + " parameters");
+        for (double threshold : thresholds) {
+            System.out.println(new CascadePredictor(smallModel, largeModel, threshold).evaluate(smallTestingData, largeTestingData));
+        }
+    }
+
+    /**
+     * Creates the dataset builder with the default target dimensions and classes, without images.
+     *
+     * @return The default dataset builder.
+     */
+    private static DataSetBuilder createDefaultDataSetBuilder() {
+        return new DataSetBuilder()
+                .withTargetDimensions(SCALE_TARGET_PIXEL_SIZE_ROWS, SCALE_TARGET_PIXEL_SIZE_COLS)
+                .withNumClasses(SignClassification.values().length)
+                .withCropProxyScaleFactor(CROP_PROXY_SCALE_FACTOR);
+    }
+
+    /**
+     * Creates the model builder with the default configuration used by all experiments, without hidden layers.
+     *
+     * @return The default model builder.
+     */
+    private static ModelBuilder createDefaultModelBuilder() {
+        return new ModelBuilder()
+                .withInputSize(SCALE_TARGET_PIXEL_SIZE_ROWS * SCALE_TARGET_PIXEL_SIZE_COLS * 4)
+                .withOutputSize(SignClassification.values().length)
+                .withOutputLayerActivation(Activation.SOFTMAX)
+                .withLearningRate(0.00001)
+                .withNumEpochs(NUM_EPOCHS)
+                .withLogFrequency(10);
+    }
+
+    /**
+     * Creates the thread calibrator, which measures the training of the standard configuration and the preprocessing
+     * with the default dataset builder.
+     *
+     * @return The thread calibrator.
+     */
+    private static ThreadCalibrator createThreadCalibrator() {
+        return new ThreadCalibrator(createDefaultModelBuilder().withHiddenLayerConfig(STANDARD_HIDDEN_LAYER_CONFIG),
+                createDefaultDataSetBuilder());
+    }
+
+    /**
+     * @return The file in the dataset folder the thread calibration is stored in.
+     */
+    private static Path getThreadCalibrationFile() {
+        return new File(loadParentFolderLocation("file_paths/dataset_paths.txt"), THREAD_CALIBRATION_FILE_NAME).toPath();
+    }
+
+    /**
+     * Loads a dataset that was saved to the dataset folder by a previous run.
+     *
+     * @param fileName The name of the dataset file in the dataset folder.
+     * @return The loaded dataset.
+     */
+    private static DataSet loadDataSetFromDisk(String fileName) {
+        DataSet dataSet = new DataSet();
+        dataSet.load(new File(loadParentFolderLocation("file_paths/dataset_paths.txt"), fileName));
+        return dataSet;
     }
 
     /**
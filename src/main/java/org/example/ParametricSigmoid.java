@@ -6,11 +6,12 @@ import org.nd4j.linalg.activations.IActivation;
 import org.nd4j.common.primitives.Pair;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.ops.transforms.Transforms;
+import org.nd4j.shade.jackson.annotation.JsonProperty;
 
 public class ParametricSigmoid extends BaseActivationFunction {
     private final double k;
 
-    public ParametricSigmoid(double k) {
+    public ParametricSigmoid(@JsonProperty("k") double k) {
         this.k = k;
     }
 
@@ -39,6 +40,10 @@ public class ParametricSigmoid extends BaseActivationFunction {
         return new Pair<>(dLdz, null);
     }
 
+    public double getK() {
+        return k;
+    }
+
     @Override
     public String toString() {
         return "ParametricSigmoidActivation(k=" + k + ")";
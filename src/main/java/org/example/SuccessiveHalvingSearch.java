@@ -0,0 +1,95 @@
+package org.example;
+
+import kotlin.Pair;
+import org.example.deep_learing_network.TrainingCandidate;
+import org.nd4j.evaluation.classification.Evaluation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Successive halving search over a set of training candidates.
+ *
+ * <p>All candidates are trained for a small budget of epochs and evaluated. Only the best {@code 1 / reductionFactor}
+ * of them keep training, continuing from where they stopped, with a budget that grows by the reduction factor in every
+ * round until the maximum number of epochs is reached. Unpromising candidates therefore only cost a fraction of the
+ * full training. The models of eliminated candidates are released.</p>
+ */
+public class SuccessiveHalvingSearch {
+    private final int minEpochs;
+    private final int maxEpochs;
+    private final int reductionFactor;
+
+    /**
+     * @param minEpochs       The number of epochs every candidate is trained for in the first round.
+     * @param maxEpochs       The number of epochs the remaining candidates are trained for in the last round.
+     * @param reductionFactor The factor by which the number of candidates shrinks and the budget grows in every round.
+     */
+    public SuccessiveHalvingSearch(int minEpochs, int maxEpochs, int reductionFactor) {
+        if (minEpochs <= 0 || maxEpochs < minEpochs) {
+            throw new IllegalArgumentException("The epochs must satisfy 0 < minEpochs <= maxEpochs");
+        }
+        if (reductionFactor < 2) {
+            throw new IllegalArgumentException("The reduction factor must be at least 2");
+        }
+        this.minEpochs = minEpochs;
+        this.maxEpochs = maxEpochs;
+        this.reductionFactor = reductionFactor;
+    }
+
+    /**
+     * Runs the search and returns the latest evaluation of every candidate.
+     * The candidates are ranked by the round they reached first and by their accuracy second.
+     *
+     * @param candidates The named candidates to search.
+     * @param <T>        The type of the candidate names.
+     * @return The ranked candidates with their latest evaluation.
+     */
+    public <T> List<Pair<T, Evaluation>> run(List<Pair<T, TrainingCandidate>> candidates) {
+        Map<T, Evaluation> latestEvaluations = new LinkedHashMap<>();
+        Map<T, Integer> epochsReached = new LinkedHashMap<>();
+        List<Pair<T, TrainingCandidate>> active = new ArrayList<>(candidates);
+        int budget = minEpochs;
+        int totalEpochs = 0;
+
+        while (true) {
+            System.out.println("Successive halving round with " + active.size() + " candidates and a budget of " + budget + " epochs");
+            for (var candidate : active) {
+                TrainingCandidate trainingCandidate = candidate.getSecond();
+                totalEpochs += budget - trainingCandidate.getEpochsTrained();
+                trainingCandidate.trainFor(budget - trainingCandidate.getEpochsTrained());
+                epochsReached.put(candidate.getFirst(), trainingCandidate.getEpochsTrained());
+            }
+            // Evaluate all candidates of the round in a single pass over the testing data
+            List<Evaluation> evaluations = TrainingCandidate.evaluateAll(active.stream().map(Pair::getSecond).toList(),
+                    Runtime.getRuntime().availableProcessors());
+            for (int i = 0; i < active.size(); i++) {
+                latestEvaluations.put(active.get(i).getFirst(), evaluations.get(i));
+            }
+            if (budget >= maxEpochs) {
+                break;
+            }
+
+            active.sort(Comparator.comparingDouble((Pair<T, TrainingCandidate> candidate) ->
+                    latestEvaluations.get(candidate.getFirst()).accuracy()).reversed());
+            int survivors = Math.max(1, (int) Math.ceil(active.size() / (double) reductionFactor));
+            // Free the parameters of the eliminated candidates before the survivors train longer
+            active.subList(survivors, active.size()).forEach(candidate -> candidate.getSecond().release());
+            active = new ArrayList<>(active.subList(0, survivors));
+            budget = (int) Math.min(maxEpochs, (long) budget * reductionFactor);
+        }
+
+        System.out.println("Successive halving trained " + totalEpochs + " epochs in total instead of "
+                + (long) candidates.size() * maxEpochs);
+
+        List<Pair<T, Evaluation>> results = new ArrayList<>();
+        latestEvaluations.forEach((name, evaluation) -> results.add(new Pair<>(name, evaluation)));
+        results.sort(Comparator.comparingInt((Pair<T, Evaluation> result) -> epochsReached.get(result.getFirst()))
+                .thenComparingDouble(result -> result.getSecond().accuracy())
+                .reversed());
+        return results;
+    }
+}
@@ -1,6 +1,15 @@
 package org.example;
 
 import kotlin.Pair;
+import org.example.deep_learing_network.ActivationProfiler;
+import org.example.deep_learing_network.ActivationProfiler.ActivationCost;
+import org.example.deep_learing_network.ConvolutionBlock;
+import org.example.deep_learing_network.CrossValidationResult;
+import org.example.deep_learing_network.CrossValidator;
+import org.example.deep_learing_network.LearningRateComparison;
+import org.example.deep_learing_network.LearningRateComparison.ConvergenceResult;
+import org.example.deep_learing_network.TrainingCandidate;
+import org.example.deep_learing_network.WarmStartRegistry;
 import org.nd4j.evaluation.classification.Evaluation;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.activations.IActivation;
@@ -10,7 +19,10 @@ import org.nd4j.linalg.ops.transforms.Transforms;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 public class TestDriver {
@@ -50,27 +62,217 @@ private final TestFunction testFunction;
     );
 
 
+private SuccessiveHalvingSearch successiveHalvingSearch;
+private ActivationProfiler activationProfiler;
+private CrossValidator crossValidator;
+private WarmStartRegistry warmStartRegistry;
+private final Map<String, WarmStartRegistry.Start> trainingStarts = new HashMap<>();
+private final Map<String, Integer> epochsTrained = new HashMap<>();
+
 public TestDriver(TestFunction testFunction) {
     this.testFunction = testFunction;
 }
 
+    /**
+     * Enables the successive halving search: instead of training every candidate for the full number of epochs,
+     * the candidates are trained in rounds and only the best ones continue training.
+     *
+     * @param successiveHalvingSearch The search to use, or {@code null} to train every candidate fully.
+     * @return The current instance of {@link TestDriver} for chaining.
+     */
+    public TestDriver withSuccessiveHalving(SuccessiveHalvingSearch successiveHalvingSearch) {
+        this.successiveHalvingSearch = successiveHalvingSearch;
+        return this;
+    }
+
+    /**
+     * Enables the profiling of the activation functions: their forward and backward time is measured and reported
+     * next to their accuracy as an accuracy per millisecond ranking.
+     *
+     * @param activationProfiler The profiler to use, or {@code null} to rank by accuracy only.
+     * @return The current instance of {@link TestDriver} for chaining.
+     */
+    public TestDriver withActivationProfiler(ActivationProfiler activationProfiler) {
+        this.activationProfiler = activationProfiler;
+        return this;
+    }
+
+    /**
+     * Enables k-fold cross-validation: every candidate is trained once per fold and reported with the mean and the
+     * standard deviation of its accuracy and F1 score, instead of a single evaluation on the testing data.
+     * Takes precedence over the successive halving search.
+     *
+     * @param crossValidator The cross-validator to use, or {@code null} to evaluate on the testing data.
+     * @return The current instance of {@link TestDriver} for chaining.
+     */
+    public TestDriver withCrossValidation(CrossValidator crossValidator) {
+        this.crossValidator = crossValidator;
+        return this;
+    }
+
+    /**
+     * Marks every fully trained result in the reports as warm-started or cold-started. The registry must be the one the
+     * model builders of the {@link TestFunction} warm-start from, see {@code ModelBuilder#withWarmStart}.
+     *
+     * @param warmStartRegistry The registry of the model builders, or {@code null} to omit the marks.
+     * @return The current instance of {@link TestDriver} for chaining.
+     */
+    public TestDriver withWarmStartRegistry(WarmStartRegistry warmStartRegistry) {
+        this.warmStartRegistry = warmStartRegistry;
+        return this;
+    }
+
 public void determineBestHiddenLayersActivationFunction() {
+    if (crossValidator != null) {
+        crossValidate("Hidden Layer Activation Function Comparison", activationFunctionsForHiddenLayer.stream()
+                .map(function -> new Pair<>(function.name(), testFunction.createHiddenLayersActivationFunctionCandidate(function)))
+                .toList());
+        return;
+    }
     List<Pair<String, Evaluation>> results = new ArrayList<>();
-    for (Activation function : activationFunctionsForHiddenLayer) {
-        System.out.println("Testing activation function: " + function.name());
-        results.add(new Pair<>(function.name(), testFunction.testDetermineBestHiddenLayersActivationFunction(function)));
+    if (successiveHalvingSearch != null) {
+        // Already ranked by the round reached first, a candidate dropped early must not outrank the finalists
+        results.addAll(runSuccessiveHalving(activationFunctionsForHiddenLayer.stream()
+                .map(function -> new Pair<>(function.name(), testFunction.createHiddenLayersActivationFunctionCandidate(function)))
+                .toList()));
+    } else {
+        for (Activation function : activationFunctionsForHiddenLayer) {
+            System.out.println("Testing activation function: " + function.name());
+            results.add(new Pair<>(function.name(), testFunction.testDetermineBestHiddenLayersActivationFunction(function)));
+            recordTrainingStart(function.name());
+        }
+        results.sort((a, b) -> Double.compare(b.getSecond().accuracy(), a.getSecond().accuracy()));
     }
 
-    results.sort((a, b) -> Double.compare(b.getSecond().accuracy(), a.getSecond().accuracy()));
     System.out.println("---------------------------------Hidden Layer Activation Function Comparison---------------------------------");
     results.forEach((result) -> {
         System.out.println("Activation Function: " + result.getFirst());
+        printEpochsTrained(result.getFirst());
+        printTrainingStart(result.getFirst());
         printEvaluationResult(result.getSecond());
         System.out.println("---------------------------------");
     });
+
+    if (activationProfiler != null) {
+        Map<String, ActivationCost> costs = new HashMap<>();
+        for (Activation function : activationFunctionsForHiddenLayer) {
+            costs.put(function.name(), activationProfiler.profile(function.name(), function.getActivationFunction()));
+        }
+        printCostRanking(results, costs);
+    }
 }
 
 public void testEffectivityOfDifferentHiddenLayerActivationFunction() {
+        List<Pair<String, List<Pair<Integer, Activation>>>> configsToTest = createLayerConfigsToTest();
+
+        if (crossValidator != null) {
+            crossValidate("Hidden Layer Activation Function Comparison", configsToTest.stream()
+                    .map(config -> new Pair<>(config.getFirst(), testFunction.createHiddenLayersActivationFunctionCandidate(config.getSecond())))
+                    .toList());
+            return;
+        }
+
+        List<Pair<String, Evaluation>> results;
+        if (successiveHalvingSearch != null) {
+            results = runSuccessiveHalving(configsToTest.stream()
+                    .map(config -> new Pair<>(config.getFirst(), testFunction.createHiddenLayersActivationFunctionCandidate(config.getSecond())))
+                    .toList());
+        } else {
+            results = configsToTest.stream().map(config -> {
+                System.out.println("Testing configuration: " + config.getFirst());
+                Pair<String, Evaluation> result = new Pair<>(config.getFirst(), testFunction.testDetermineBestHiddenLayersActivationFunction(config.getSecond()));
+                recordTrainingStart(config.getFirst());
+                return result;
+            }).toList();
+        }
+
+        System.out.println("---------------------------------Hidden Layer Activation Function Comparison---------------------------------");
+        results.forEach((result) -> {
+            System.out.println("Configuration: " + result.getFirst());
+            printEpochsTrained(result.getFirst());
+            printTrainingStart(result.getFirst());
+            printEvaluationResult(result.getSecond());
+            System.out.println("---------------------------------");
+        });
+
+    }
+
+
+    public void testParameterAdjustmentInSigmoidFunction() {
+        List<Double> factors = List.of(1.0, 1.5, 2.0, 3.0, 5.0, 10.0, 20.0);
+        List<Double> smallParams = factors.stream().map(f -> 1.0 / f).toList();
+        List<Double> uniqueParams = Stream.concat(smallParams.stream(), factors.stream()).distinct().sorted().toList();
+        System.out.println("Unique Parameters: " + uniqueParams);
+        if (crossValidator != null) {
+            crossValidate("Sigmoid Parameter Adjustment", uniqueParams.stream()
+                    .map(parameter -> new Pair<>("Parameter " + parameter, testFunction.createParameterAdjustmentInSigmoidFunctionCandidate(parameter)))
+                    .toList());
+            return;
+        }
+        List<Pair<Double, Evaluation>> results = new ArrayList<>();
+        if (successiveHalvingSearch != null) {
+            results.addAll(runSuccessiveHalving(uniqueParams.stream()
+                    .map(parameter -> new Pair<>(parameter, testFunction.createParameterAdjustmentInSigmoidFunctionCandidate(parameter)))
+                    .toList()));
+        } else {
+            for (double parameter : uniqueParams) {
+                System.out.println("Testing parameter: " + parameter);
+                results.add(new Pair<>(parameter, testFunction.testParameterAdjustmentInSigmoidFunction(parameter)));
+                recordTrainingStart("Parameter " + parameter);
+            }
+        }
+
+        System.out.println("---------------------------------Sigmoid Parameter Adjustment---------------------------------");
+        results.forEach((result) -> {
+            System.out.println("Parameter: " + result.getFirst());
+            printEpochsTrained(String.valueOf(result.getFirst()));
+            printTrainingStart("Parameter " + result.getFirst());
+            printEvaluationResult(result.getSecond());
+            System.out.println("---------------------------------");
+        });
+
+        if (activationProfiler != null) {
+            Map<String, ActivationCost> costs = new HashMap<>();
+            for (double parameter : uniqueParams) {
+                String name = "Parameter " + parameter;
+                costs.put(name, activationProfiler.profile(name, new ParametricSigmoid(parameter)));
+            }
+            printCostRanking(results.stream().map(result -> new Pair<String, Evaluation>("Parameter " + result.getFirst(), result.getSecond())).toList(), costs);
+        }
+    }
+
+    public void testConvolutionalConfigurations() {
+        List<Pair<String, List<ConvolutionBlock>>> configsToTest = List.of(
+                new Pair<>("One Convolution Block", List.of(
+                        new ConvolutionBlock(16, 3, Activation.RELU, 2))),
+                new Pair<>("Two Convolution Blocks", List.of(
+                        new ConvolutionBlock(16, 3, Activation.RELU, 2),
+                        new ConvolutionBlock(32, 3, Activation.RELU, 2))),
+                new Pair<>("Three Convolution Blocks", List.of(
+                        new ConvolutionBlock(16, 5, Activation.RELU, 2),
+                        new ConvolutionBlock(32, 3, Activation.RELU, 2),
+                        new ConvolutionBlock(64, 3, Activation.RELU, 2)))
+        );
+
+        List<Pair<String, Evaluation>> results = new ArrayList<>();
+        for (var config : configsToTest) {
+            System.out.println("Testing convolutional configuration: " + config.getFirst());
+            results.add(new Pair<>(config.getFirst(), testFunction.testConvolutionalConfiguration(config.getSecond())));
+        }
+
+        results.sort((a, b) -> Double.compare(b.getSecond().accuracy(), a.getSecond().accuracy()));
+        System.out.println("---------------------------------Convolutional Configuration Comparison---------------------------------");
+        results.forEach((result) -> {
+            System.out.println("Configuration: " + result.getFirst());
+            printEvaluationResult(result.getSecond());
+            System.out.println("---------------------------------");
+        });
+    }
+
+    /**
+     * @return The named hidden layer configurations compared by {@link #testEffectivityOfDifferentHiddenLayerActivationFunction()}.
+     */
+    private List<Pair<String, List<Pair<Integer, Activation>>>> createLayerConfigsToTest() {
         List<Pair<Integer, Activation>> baseConfig = Arrays.asList(
                 new Pair<>(500, Activation.RELU),
                 new Pair<>(250, Activation.RELU),
@@ -101,45 +303,116 @@ public void testEffectivityOfDifferentHiddenLayerActivationFunction() {
     );
 
 
-    List<Pair<String, List<Pair<Integer, Activation>> >> configsToTest = List.of(
+    return List.of(
                 new Pair<>("Base Configuration", baseConfig),
                 new Pair<>("Modified Configuration 1", modifiedConfig1),
                 new Pair<>("Modified Configuration 2", modifiedConfig2),
                 new Pair<>("Modified Configuration 3", modifiedConfig3)
         );
+    }
 
-        var results = configsToTest.stream().map(config -> {
-            System.out.println("Testing configuration: " + config.getFirst());
-            return new Pair<>(config.getFirst(), testFunction.testDetermineBestHiddenLayersActivationFunction(config.getSecond()));
-        }).toList();
+    /**
+     * Reports for every hidden layer configuration how many epochs it needs to reach its final accuracy with the
+     * configured learning rate and with the learning rate found by a learning rate range test.
+     *
+     * @param comparison The comparison to run for every configuration.
+     */
+    public void testLearningRateRangeFinder(LearningRateComparison comparison) {
+        List<Pair<String, ConvergenceResult>> results = new ArrayList<>();
+        for (Activation function : activationFunctionsForHiddenLayer) {
+            System.out.println("Comparing learning rates for activation function: " + function.name());
+            results.add(new Pair<>(function.name(), comparison.compare(testFunction.createHiddenLayersActivationFunctionCandidate(function))));
+        }
+        for (var config : createLayerConfigsToTest()) {
+            System.out.println("Comparing learning rates for configuration: " + config.getFirst());
+            results.add(new Pair<>(config.getFirst(), comparison.compare(testFunction.createHiddenLayersActivationFunctionCandidate(config.getSecond()))));
+        }
 
-        System.out.println("---------------------------------Hidden Layer Activation Function Comparison---------------------------------");
+        System.out.println("---------------------------------Learning Rate Range Finder---------------------------------");
+        System.out.println(String.format("%-26s %16s %16s %16s %16s", "Configuration", "Target accuracy",
+                "Found rate", "Epochs (fixed)", "Epochs (found)"));
+        results.forEach((result) -> {
+            ConvergenceResult convergence = result.getSecond();
+            System.out.println(String.format("%-26s %16.4f %16.2e %16d %16s", result.getFirst(), convergence.targetAccuracy(),
+                    convergence.foundLearningRate(), convergence.baselineEpochsToTarget(),
+                    convergence.tunedEpochsToTarget() < 0 ? "not reached" : String.valueOf(convergence.tunedEpochsToTarget())));
+        });
+    }
+
+    /**
+     * Cross-validates the candidates one after another, the folds of each candidate are trained concurrently,
+     * and prints them ranked by their mean accuracy.
+     */
+    private void crossValidate(String title, List<Pair<String, TrainingCandidate>> candidates) {
+        List<Pair<String, CrossValidationResult>> results = new ArrayList<>();
+        for (var candidate : candidates) {
+            System.out.println("Cross-validating: " + candidate.getFirst());
+            results.add(new Pair<>(candidate.getFirst(), crossValidator.validate(candidate.getSecond())));
+        }
+
+        results.sort((a, b) -> Double.compare(b.getSecond().meanAccuracy(), a.getSecond().meanAccuracy()));
+        System.out.println("---------------------------------" + title + " (Cross-Validation)---------------------------------");
         results.forEach((result) -> {
+            CrossValidationResult validation = result.getSecond();
             System.out.println("Configuration: " + result.getFirst());
-            printEvaluationResult(result.getSecond());
+            System.out.println("Accuracy: " + validation.meanAccuracy() + " ± " + validation.accuracyStandardDeviation());
+            System.out.println("F1 Score: " + validation.meanF1() + " ± " + validation.f1StandardDeviation());
+            System.out.println("Accuracy per fold: " + validation.accuracies());
             System.out.println("---------------------------------");
         });
+    }
+
+    /**
+     * Prints the activation functions ranked by accuracy per millisecond of forward and backward time.
+     */
+    private void printCostRanking(List<Pair<String, Evaluation>> results, Map<String, ActivationCost> costs) {
+        List<Pair<String, Evaluation>> ranking = new ArrayList<>(results);
+        ranking.sort(Comparator.comparingDouble((Pair<String, Evaluation> result) ->
+                result.getSecond().accuracy() / costs.get(result.getFirst()).totalMillis()).reversed());
 
+        System.out.println("---------------------------------Activation Function Cost Ranking---------------------------------");
+        System.out.println("Layer widths: " + costs.values().iterator().next().layerWidths());
+        ranking.forEach((result) -> {
+            ActivationCost cost = costs.get(result.getFirst());
+            System.out.println("Activation Function: " + result.getFirst());
+            System.out.println("Accuracy: " + result.getSecond().accuracy());
+            System.out.println("F1 Score: " + result.getSecond().f1());
+            System.out.println("Forward time per layer (ms): " + Arrays.toString(cost.forwardMillis()));
+            System.out.println("Backward time per layer (ms): " + Arrays.toString(cost.backwardMillis()));
+            System.out.println("Accuracy per millisecond: " + result.getSecond().accuracy() / cost.totalMillis());
+            System.out.println("---------------------------------");
+        });
     }
 
+    /**
+     * Runs the successive halving search and records the number of epochs every candidate was trained for.
+     *
+     * @return The results ranked by the round reached first and by accuracy second.
+     */
+    private <T> List<Pair<T, Evaluation>> runSuccessiveHalving(List<Pair<T, TrainingCandidate>> candidates) {
+        List<Pair<T, Evaluation>> results = successiveHalvingSearch.run(candidates);
+        candidates.forEach(candidate -> epochsTrained.put(String.valueOf(candidate.getFirst()), candidate.getSecond().getEpochsTrained()));
+        return results;
+    }
 
-    public void testParameterAdjustmentInSigmoidFunction() {
-        List<Double> factors = List.of(1.0, 1.5, 2.0, 3.0, 5.0, 10.0, 20.0);
-        List<Double> smallParams = factors.stream().map(f -> 1.0 / f).toList();
-        List<Double> uniqueParams = Stream.concat(smallParams.stream(), factors.stream()).distinct().sorted().toList();
-        System.out.println("Unique Parameters: " + uniqueParams);
-        List<Pair<Double, Evaluation>> results = new ArrayList<>();
-        for (double parameter : uniqueParams) {
-            System.out.println("Testing parameter: " + parameter);
-            results.add(new Pair<>(parameter, testFunction.testParameterAdjustmentInSigmoidFunction(parameter)));
+    private void printEpochsTrained(String name) {
+        Integer epochs = epochsTrained.get(name);
+        if (epochs != null) {
+            System.out.println("Epochs trained: " + epochs);
         }
+    }
 
-        System.out.println("---------------------------------Sigmoid Parameter Adjustment---------------------------------");
-        results.forEach((result) -> {
-            System.out.println("Parameter: " + result.getFirst());
-            printEvaluationResult(result.getSecond());
-            System.out.println("---------------------------------");
-        });
+    private void recordTrainingStart(String name) {
+        if (warmStartRegistry != null && warmStartRegistry.getLastStart() != null) {
+            trainingStarts.put(name, warmStartRegistry.getLastStart());
+        }
+    }
+
+    private void printTrainingStart(String name) {
+        WarmStartRegistry.Start start = trainingStarts.get(name);
+        if (start != null) {
+            System.out.println("Training: " + start);
+        }
     }
 
     private void printEvaluationResult(Evaluation evaluation) {
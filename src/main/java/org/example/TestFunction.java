@@ -1,6 +1,8 @@
 package org.example;
 
 import kotlin.Pair;
+import org.example.deep_learing_network.ConvolutionBlock;
+import org.example.deep_learing_network.TrainingCandidate;
 import org.nd4j.evaluation.classification.Evaluation;
 import org.nd4j.linalg.activations.Activation;
 
@@ -12,4 +14,12 @@ public interface TestFunction {
 
     Evaluation testParameterAdjustmentInSigmoidFunction(double parameter);
 
+    Evaluation testConvolutionalConfiguration(List<ConvolutionBlock> convolutionBlocks);
+
+    // Untrained candidates for the successive halving search, see TestDriver#withSuccessiveHalving
+    TrainingCandidate createHiddenLayersActivationFunctionCandidate(Activation hiddenLayerActivationFunction);
+    TrainingCandidate createHiddenLayersActivationFunctionCandidate(List<Pair<Integer, Activation>> hiddenLayerConfig);
+
+    TrainingCandidate createParameterAdjustmentInSigmoidFunctionCandidate(double parameter);
+
 }
@@ -0,0 +1,87 @@
+package org.example.benchmark;
+
+import org.example.ImageCropper;
+import org.example.image_loader.LoadableImage;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the contour search of the {@link ImageCropper} on downscaled proxy images with the search at full
+ * resolution: the crop time per image and how far the borders of the crop move compared to the full resolution crop.
+ */
+public class CropProxyBenchmark {
+    private final List<LoadableImage> images;
+
+    /**
+     * @param images The images to crop, decoded once before the measurement.
+     */
+    public CropProxyBenchmark(List<LoadableImage> images) {
+        this.images = images;
+    }
+
+    /**
+     * Crops all images at full resolution and with every proxy scale factor and prints the results.
+     *
+     * @param proxyScaleFactors The proxy scale factors to compare with the full resolution, e.g. 2, 4 and 8.
+     */
+    public void run(List<Double> proxyScaleFactors) {
+        List<Mat> decodedImages = images.stream().map(LoadableImage::loadMaterial).toList();
+        try {
+            List<Rect> fullResolutionBounds = new ArrayList<>();
+            double fullResolutionMicros = measureCropMicros(new ImageCropper(), decodedImages);
+            ImageCropper fullResolutionCropper = new ImageCropper();
+            for (Mat image : decodedImages) {
+                fullResolutionBounds.add(fullResolutionCropper.findSignBounds(image));
+            }
+
+            System.out.println("---------------------------------Contour Search on a Proxy Image---------------------------------");
+            System.out.println(String.format("%-12s %16s %10s %22s %22s", "Scale factor", "Crop time (µs)", "Speedup",
+                    "Mean border offset (px)", "Max border offset (px)"));
+            System.out.println(String.format("%-12s %16.1f %10.2f %22.2f %22d", "1 (full)", fullResolutionMicros, 1.0, 0.0, 0));
+            for (double proxyScaleFactor : proxyScaleFactors) {
+                ImageCropper cropper = new ImageCropper().withProxyScaleFactor(proxyScaleFactor);
+                double micros = measureCropMicros(cropper, decodedImages);
+                long totalOffset = 0;
+                int maxOffset = 0;
+                for (int i = 0; i < decodedImages.size(); i++) {
+                    int offset = maxBorderOffset(fullResolutionBounds.get(i), cropper.findSignBounds(decodedImages.get(i)));
+                    totalOffset += offset;
+                    maxOffset = Math.max(maxOffset, offset);
+                }
+                System.out.println(String.format("%-12.1f %16.1f %10.2f %22.2f %22d", proxyScaleFactor, micros,
+                        fullResolutionMicros / micros, (double) totalOffset / Math.max(decodedImages.size(), 1), maxOffset));
+            }
+        } finally {
+            decodedImages.forEach(Mat::release);
+        }
+    }
+
+    private static double measureCropMicros(ImageCropper cropper, List<Mat> decodedImages) {
+        for (Mat image : decodedImages) {
+            release(image, cropper.cropSign(image)); // warm up
+        }
+        long start = System.nanoTime();
+        for (Mat image : decodedImages) {
+            release(image, cropper.cropSign(image));
+        }
+        return (System.nanoTime() - start) / 1000.0 / Math.max(decodedImages.size(), 1);
+    }
+
+    private static void release(Mat image, Mat cropped) {
+        if (cropped != image) {
+            cropped.release();
+        }
+    }
+
+    /**
+     * @return The largest distance between a border of the full resolution crop and the same border of the proxy crop.
+     */
+    private static int maxBorderOffset(Rect expected, Rect actual) {
+        return Math.max(Math.max(Math.abs(expected.x - actual.x), Math.abs(expected.y - actual.y)),
+                Math.max(Math.abs(expected.x + expected.width - actual.x - actual.width),
+                        Math.abs(expected.y + expected.height - actual.y - actual.height)));
+    }
+}
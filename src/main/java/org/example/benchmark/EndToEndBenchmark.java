@@ -0,0 +1,156 @@
+package org.example.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.example.SignClassification;
+import org.example.deep_learing_network.DataSetBuilder;
+import org.example.deep_learing_network.ModelBuilder;
+import org.example.image_loader.ImageLoader;
+import org.example.image_loader.LoadableImage;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the throughput of the whole pipeline on synthetic corpora of increasing size: loading and preprocessing
+ * images, training and inference. The results are written as JSON, so they can be compared between versions.
+ *
+ * <p>Every corpus is held in memory twice, as the preprocessed feature vectors on the heap and as the ND4J data set
+ * trained on off the heap, so a corpus needs about {@code 4 * images * inputSize} bytes of each, e.g. 7.7 GB of each
+ * for 100000 images at 19,200 features.</p>
+ */
+public class EndToEndBenchmark {
+    private static final int PREDICTION_BATCH_SIZE = 1024;
+
+    private final File workDirectory;
+    private final ModelBuilder modelBuilder;
+    private final DataSetBuilder dataSetBuilder;
+    private int trainingEpochs = 2;
+
+    /**
+     * @param workDirectory  The directory the synthetic corpora are generated in. Existing corpora are reused.
+     * @param modelBuilder   The fully configured builder of the benchmarked model.
+     * @param dataSetBuilder The builder used for preprocessing, configured with target dimensions and classes.
+     */
+    public EndToEndBenchmark(File workDirectory, ModelBuilder modelBuilder, DataSetBuilder dataSetBuilder) {
+        this.workDirectory = workDirectory;
+        this.modelBuilder = modelBuilder;
+        this.dataSetBuilder = dataSetBuilder;
+    }
+
+    /**
+     * Sets the number of epochs trained to measure the training throughput. Defaults to 2.
+     *
+     * @param trainingEpochs The number of training epochs.
+     * @return The current instance of {@link EndToEndBenchmark} for chaining.
+     */
+    public EndToEndBenchmark withTrainingEpochs(int trainingEpochs) {
+        this.trainingEpochs = trainingEpochs;
+        return this;
+    }
+
+    /**
+     * Runs the benchmark for every corpus size and writes the report as JSON.
+     *
+     * @param corpusSizes The numbers of images of the benchmarked corpora, e.g. 1000 and 10000.
+     * @param resultFile  The file the JSON report is written to.
+     * @return The report.
+     */
+    public BenchmarkReport run(List<Integer> corpusSizes, Path resultFile) {
+        List<BenchmarkRun> runs = new ArrayList<>();
+        for (int corpusSize : corpusSizes) {
+            BenchmarkRun run = run(corpusSize);
+            System.out.println(run);
+            runs.add(run);
+        }
+        BenchmarkReport report = new BenchmarkReport(Instant.now().toString(), Runtime.getRuntime().availableProcessors(),
+                dataSetBuilder.getInputSize(), trainingEpochs, runs);
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        String json = gson.toJson(report);
+        try {
+            Files.writeString(resultFile, json, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the benchmark report to " + resultFile, e);
+        }
+        System.out.println(json);
+        return report;
+    }
+
+    private BenchmarkRun run(int corpusSize) {
+        long requiredHeapBytes = 4L * corpusSize * dataSetBuilder.getInputSize();
+        if (requiredHeapBytes > Runtime.getRuntime().maxMemory()) {
+            System.out.println("Warning: the features of " + corpusSize + " images need about " + requiredHeapBytes / (1024 * 1024)
+                    + " MB of heap, more than the maximum of " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB");
+        }
+        int imagesPerClass = Math.max(1, corpusSize / SignClassification.values().length);
+        File corpusDirectory = new File(workDirectory, "synthetic_" + corpusSize);
+        if (!corpusDirectory.isDirectory()) {
+            System.out.println("Generating " + corpusSize + " synthetic images in " + corpusDirectory);
+            new SyntheticSignGenerator(corpusSize).generate(corpusDirectory, imagesPerClass);
+        }
+
+        // Loading and preprocessing: finding, decoding, cropping, scaling and flattening every image
+        long start = System.nanoTime();
+        List<LoadableImage> images = new ImageLoader(0, 0).withCorpusDirectory(corpusDirectory).loadAllImages();
+        DataSet data = dataSetBuilder.withImages(images).build();
+        double preprocessingSeconds = seconds(start);
+
+        // Training with the same full-batch epochs as ModelBuilder.buildAndTrain
+        MultiLayerNetwork model = modelBuilder.build();
+        start = System.nanoTime();
+        modelBuilder.train(model, data, trainingEpochs);
+        double trainingSeconds = seconds(start);
+
+        // Inference in batches, as a service would predict
+        DataSet preparedData = modelBuilder.prepareTrainingData(model, data);
+        List<DataSet> batches = preparedData.numExamples() > PREDICTION_BATCH_SIZE
+                ? preparedData.batchBy(PREDICTION_BATCH_SIZE) : List.of(preparedData);
+        start = System.nanoTime();
+        for (DataSet batch : batches) {
+            model.output(batch.getFeatures(), false);
+        }
+        double inferenceSeconds = seconds(start);
+
+        int numImages = images.size();
+        return new BenchmarkRun(numImages,
+                numImages / preprocessingSeconds,
+                (double) numImages * trainingEpochs / trainingSeconds,
+                numImages / inferenceSeconds);
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+
+    /**
+     * The throughput measured for one corpus size.
+     *
+     * @param images                   The number of images of the corpus.
+     * @param preprocessedImagesPerSec The images loaded and preprocessed per second.
+     * @param trainingSamplesPerSec    The training examples processed per second, over all epochs.
+     * @param predictionsPerSec        The predictions per second.
+     */
+    public record BenchmarkRun(int images, double preprocessedImagesPerSec, double trainingSamplesPerSec, double predictionsPerSec) {
+    }
+
+    /**
+     * The JSON report of a benchmark.
+     *
+     * @param timestamp      When the benchmark finished.
+     * @param cores          The number of available cores.
+     * @param inputSize      The number of input features per image.
+     * @param trainingEpochs The number of epochs trained per corpus.
+     * @param runs           The measurements per corpus size.
+     */
+    public record BenchmarkReport(String timestamp, int cores, int inputSize, int trainingEpochs, List<BenchmarkRun> runs) {
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.benchmark;
+
+import org.example.SignClassification;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Renders a synthetic corpus of sign-like images, so the whole pipeline can be benchmarked without the real dataset.
+ *
+ * <p>Every {@link SignClassification} gets its own shape and colors, roughly like the real sign: triangles for the
+ * right of way signs, an octagon for stop, blue circles with arrows for the direction signs and a yellow diamond for
+ * the priority road. The signs are placed with random size, position and rotation on a random textured background,
+ * and gaussian noise is added. The images are written in the directory layout expected by the ImageLoader.</p>
+ */
+public class SyntheticSignGenerator {
+    // Colors in BGR order, as written by Imgcodecs.imwrite
+    private static final Scalar RED = new Scalar(30, 30, 200);
+    private static final Scalar WHITE = new Scalar(245, 245, 245);
+    private static final Scalar BLACK = new Scalar(20, 20, 20);
+    private static final Scalar BLUE = new Scalar(170, 80, 20);
+    private static final Scalar YELLOW = new Scalar(20, 200, 240);
+
+    private final long seed;
+    private int imageSize = 96;
+    private double noiseStandardDeviation = 12;
+
+    /**
+     * @param seed The seed of the generator. The same seed renders the same corpus.
+     */
+    public SyntheticSignGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the width and height of the rendered images in pixels. Defaults to 96.
+     *
+     * @param imageSize The size of the square images.
+     * @return The current instance of {@link SyntheticSignGenerator} for chaining.
+     */
+    public SyntheticSignGenerator withImageSize(int imageSize) {
+        this.imageSize = imageSize;
+        return this;
+    }
+
+    /**
+     * Sets the standard deviation of the gaussian noise added to every pixel. Defaults to 12.
+     *
+     * @param noiseStandardDeviation The standard deviation in intensity levels.
+     * @return The current instance of {@link SyntheticSignGenerator} for chaining.
+     */
+    public SyntheticSignGenerator withNoise(double noiseStandardDeviation) {
+        this.noiseStandardDeviation = noiseStandardDeviation;
+        return this;
+    }
+
+    /**
+     * Renders the images into one child directory per classification. The images are rendered in parallel.
+     *
+     * @param corpusDirectory The directory to write the corpus to. It is created if it does not exist.
+     * @param imagesPerClass  The number of images rendered per classification.
+     * @return The total number of rendered images.
+     */
+    public int generate(File corpusDirectory, int imagesPerClass) {
+        SignClassification[] classifications = SignClassification.values();
+        for (SignClassification classification : classifications) {
+            File directory = new File(corpusDirectory, classification.name());
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IllegalArgumentException("Could not create the directory " + directory.getAbsolutePath());
+            }
+        }
+
+        int total = imagesPerClass * classifications.length;
+        IntStream.range(0, total).parallel().forEach(index -> {
+            SignClassification classification = classifications[index % classifications.length];
+            File file = new File(new File(corpusDirectory, classification.name()), "synthetic_" + index + ".jpg");
+            Mat image = render(classification, index);
+            try {
+                if (!Imgcodecs.imwrite(file.getAbsolutePath(), image)) {
+                    throw new IllegalStateException("Could not write " + file.getAbsolutePath());
+                }
+            } finally {
+                image.release();
+            }
+        });
+        return total;
+    }
+
+    /**
+     * Renders a single image of a classification in BGR format.
+     *
+     * @param classification The classification of the rendered sign.
+     * @param index          The index of the image, which together with the seed determines the image.
+     * @return The rendered image.
+     */
+    public Mat render(SignClassification classification, int index) {
+        Random random = new Random(seed * 1_000_003L + index);
+        Mat image = new Mat(imageSize, imageSize, CvType.CV_8UC3, randomColor(random));
+        drawBackground(image, random);
+
+        Point center = new Point(imageSize * (0.4 + 0.2 * random.nextDouble()), imageSize * (0.4 + 0.2 * random.nextDouble()));
+        double radius = imageSize * (0.28 + 0.15 * random.nextDouble());
+        double rotation = random.nextGaussian() * 5;
+
+        switch (classification) {
+            case VORFAHRT_VON_RECHTS -> {
+                fillPolygon(image, center, radius, 3, -90 + rotation, RED);
+                fillPolygon(image, center, radius * 0.7, 3, -90 + rotation, WHITE);
+                double size = radius * 0.25;
+                Imgproc.line(image, new Point(center.x, center.y - size), new Point(center.x, center.y + size * 1.5), BLACK, Math.max(1, (int) (radius / 12)));
+                Imgproc.line(image, new Point(center.x - size, center.y + size * 0.2), new Point(center.x + size, center.y + size * 0.2), BLACK, Math.max(1, (int) (radius / 12)));
+            }
+            case VORFAHRT_GEWAEHREN -> {
+                fillPolygon(image, center, radius, 3, 90 + rotation, RED);
+                fillPolygon(image, center, radius * 0.7, 3, 90 + rotation, WHITE);
+            }
+            case STOP -> {
+                fillPolygon(image, center, radius, 8, 22.5 + rotation, RED);
+                Imgproc.putText(image, "STOP", new Point(center.x - radius * 0.75, center.y + radius * 0.2),
+                        Imgproc.FONT_HERSHEY_SIMPLEX, radius / 40, WHITE, Math.max(1, (int) (radius / 15)));
+            }
+            case FAHRTRICHTUNG_LINKS, FAHRTRICHTUNG_RECHTS -> {
+                Imgproc.circle(image, center, (int) radius, BLUE, Imgproc.FILLED);
+                double direction = classification == SignClassification.FAHRTRICHTUNG_LINKS ? -1 : 1;
+                Imgproc.arrowedLine(image, new Point(center.x - direction * radius * 0.6, center.y),
+                        new Point(center.x + direction * radius * 0.6, center.y), WHITE, Math.max(1, (int) (radius / 6)),
+                        Imgproc.LINE_AA, 0, 0.4);
+            }
+            case VORFAHRTSSTRASSE -> {
+                fillPolygon(image, center, radius, 4, rotation, WHITE);
+                fillPolygon(image, center, radius * 0.75, 4, rotation, YELLOW);
+            }
+        }
+
+        addNoise(image, random);
+        return image;
+    }
+
+    private void drawBackground(Mat image, Random random) {
+        // A few random blocks imitate buildings, trees and sky behind the sign
+        for (int i = 0; i < 6; i++) {
+            Point corner = new Point(random.nextInt(imageSize), random.nextInt(imageSize));
+            Point opposite = new Point(corner.x + random.nextInt(imageSize / 2), corner.y + random.nextInt(imageSize / 2));
+            Imgproc.rectangle(image, corner, opposite, randomColor(random), Imgproc.FILLED);
+        }
+        Imgproc.GaussianBlur(image, image, new Size(5, 5), 0);
+    }
+
+    private void addNoise(Mat image, Random random) {
+        Mat noise = new Mat(image.size(), image.type());
+        try {
+            Core.setRNGSeed(random.nextInt());
+            Core.randn(noise, 128, noiseStandardDeviation);
+            // image + noise - 128, saturated to the valid range
+            Core.addWeighted(image, 1, noise, 1, -128, image);
+        } finally {
+            noise.release();
+        }
+    }
+
+    private static void fillPolygon(Mat image, Point center, double radius, int corners, double rotationDegrees, Scalar color) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < corners; i++) {
+            double angle = Math.toRadians(rotationDegrees + 360.0 * i / corners);
+            points.add(new Point(center.x + radius * Math.cos(angle), center.y + radius * Math.sin(angle)));
+        }
+        MatOfPoint polygon = new MatOfPoint();
+        polygon.fromList(points);
+        Imgproc.fillPoly(image, List.of(polygon), color, Imgproc.LINE_AA);
+    }
+
+    private static Scalar randomColor(Random random) {
+        return new Scalar(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+    }
+}
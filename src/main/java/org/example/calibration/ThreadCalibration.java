@@ -0,0 +1,45 @@
+package org.example.calibration;
+
+import org.nd4j.linalg.factory.Nd4j;
+import org.opencv.core.Core;
+
+/**
+ * The thread counts chosen by the {@link ThreadCalibrator} for a machine, stored as JSON so later runs can reuse them.
+ *
+ * @param cores                        The number of cores of the machine the calibration ran on.
+ * @param preprocessingWorkers         The number of Java threads cropping and scaling images in parallel.
+ * @param openCvThreads                The number of threads of the internal thread pool of OpenCV.
+ * @param nd4jThreads                  The number of threads of the libnd4j thread pool.
+ * @param blasThreads                  The number of threads of OpenBLAS or MKL, which run the matrix multiplications.
+ * @param preprocessingImagesPerSecond The measured throughput of the chosen preprocessing configuration.
+ * @param trainingSamplesPerSecond     The measured throughput of the chosen ND4J configuration.
+ * @param calibratedAt                 The time of the calibration, in ISO-8601 format.
+ */
+public record ThreadCalibration(int cores,
+                                int preprocessingWorkers,
+                                int openCvThreads,
+                                int nd4jThreads,
+                                int blasThreads,
+                                double preprocessingImagesPerSecond,
+                                double trainingSamplesPerSecond,
+                                String calibratedAt) {
+
+    /**
+     * Applies the OpenCV, ND4J and BLAS thread counts to the current process. The number of preprocessing workers has
+     * to be passed to the {@code DataSetBuilder}. Child processes need {@code OMP_NUM_THREADS} in their environment
+     * instead.
+     */
+    public void apply() {
+        Core.setNumThreads(openCvThreads);
+        Nd4j.getEnvironment().setMaxThreads(nd4jThreads);
+        Nd4j.factory().blas().setMaxThreads(blasThreads);
+        System.out.println("Applied thread calibration: " + this);
+    }
+
+    @Override
+    public String toString() {
+        return preprocessingWorkers + " preprocessing workers with " + openCvThreads + " OpenCV threads ("
+                + String.format("%.1f", preprocessingImagesPerSecond) + " images/s), " + nd4jThreads + " ND4J and " + blasThreads + " BLAS threads ("
+                + String.format("%.1f", trainingSamplesPerSecond) + " samples/s) on " + cores + " cores";
+    }
+}
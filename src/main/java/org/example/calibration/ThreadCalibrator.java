@@ -0,0 +1,232 @@
+package org.example.calibration;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.example.ImageCropper;
+import org.example.SignClassification;
+import org.example.benchmark.SyntheticSignGenerator;
+import org.example.deep_learing_network.DataSetBuilder;
+import org.example.deep_learing_network.ModelBuilder;
+import org.nd4j.linalg.api.blas.Blas;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Environment;
+import org.nd4j.linalg.factory.Nd4j;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Chooses the number of preprocessing workers, OpenCV threads and ND4J threads for the current machine with a short
+ * synthetic workload.
+ *
+ * <p>Java workers, the thread pool of OpenCV and the native threads of ND4J compete for the same cores, so their
+ * defaults oversubscribe the machine. The preprocessing is measured for every number of workers, once with a single
+ * OpenCV thread per worker and once with the cores split between the workers. The training is measured for every
+ * number of native threads, which is applied to both the libnd4j thread pool and the BLAS library, since the
+ * matrix multiplications of the dense layers run on the BLAS threads. The fastest configurations are stored as JSON
+ * and reused until the number of cores changes.</p>
+ */
+public class ThreadCalibrator {
+    private static final int PREPROCESSING_IMAGES = 64;
+    private static final int SYNTHETIC_IMAGE_SIZE = 256;
+    private static final int TRAINING_EXAMPLES = 256;
+    private static final int TRAINING_ITERATIONS = 5;
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final ModelBuilder modelBuilder;
+    private final DataSetBuilder dataSetBuilder;
+
+    /**
+     * @param modelBuilder   The fully configured builder of the trained model, used for the training workload.
+     * @param dataSetBuilder The builder configured with the target dimensions, used for the preprocessing workload.
+     */
+    public ThreadCalibrator(ModelBuilder modelBuilder, DataSetBuilder dataSetBuilder) {
+        this.modelBuilder = modelBuilder;
+        this.dataSetBuilder = dataSetBuilder;
+    }
+
+    /**
+     * Reads the calibration from the file if it was made on a machine with the same number of cores, otherwise
+     * calibrates and writes the file.
+     *
+     * @param calibrationFile The file the calibration is stored in.
+     * @return The calibration, not yet applied.
+     */
+    public ThreadCalibration loadOrCalibrate(Path calibrationFile) {
+        if (Files.exists(calibrationFile)) {
+            try {
+                ThreadCalibration calibration = gson.fromJson(Files.readString(calibrationFile, StandardCharsets.UTF_8), ThreadCalibration.class);
+                if (calibration != null && calibration.cores() == Runtime.getRuntime().availableProcessors()
+                        && calibration.blasThreads() > 0) {
+                    return calibration;
+                }
+                System.out.println("The thread calibration was made for a different number of cores or without BLAS threads, calibrating again");
+            } catch (IOException | JsonParseException e) {
+                System.out.println("Could not read the thread calibration " + calibrationFile + ", calibrating again: " + e.getMessage());
+            }
+        }
+        return calibrate(calibrationFile);
+    }
+
+    /**
+     * Runs the calibration and writes it to the file.
+     *
+     * @param calibrationFile The file the calibration is stored in.
+     * @return The calibration, not yet applied.
+     */
+    public ThreadCalibration calibrate(Path calibrationFile) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("---------------------------------Thread Calibration---------------------------------");
+        System.out.println("Cores: " + cores);
+
+        List<Mat> images = renderImages();
+        int bestWorkers = 1;
+        int bestOpenCvThreads = 1;
+        double bestImagesPerSecond = 0;
+        try {
+            System.out.println(String.format("%-8s %14s %12s", "Workers", "OpenCV threads", "images/s"));
+            for (int workers : threadCounts(cores)) {
+                for (int openCvThreads : List.of(1, Math.max(1, cores / workers)).stream().distinct().toList()) {
+                    double imagesPerSecond = measurePreprocessing(images, workers, openCvThreads);
+                    System.out.println(String.format("%-8d %14d %12.1f", workers, openCvThreads, imagesPerSecond));
+                    if (imagesPerSecond > bestImagesPerSecond) {
+                        bestImagesPerSecond = imagesPerSecond;
+                        bestWorkers = workers;
+                        bestOpenCvThreads = openCvThreads;
+                    }
+                }
+            }
+        } finally {
+            images.forEach(Mat::release);
+        }
+
+        int bestNativeThreads = 1;
+        double bestSamplesPerSecond = 0;
+        Environment environment = Nd4j.getEnvironment();
+        Blas blas = Nd4j.factory().blas();
+        int previousMaxThreads = environment.maxThreads();
+        int previousBlasThreads = blas.getMaxThreads();
+        try {
+            MultiLayerNetwork model = modelBuilder.build();
+            model.setListeners();
+            DataSet data = modelBuilder.prepareTrainingData(model, createRandomDataSet());
+            System.out.println(String.format("%-17s %12s", "ND4J/BLAS threads", "samples/s"));
+            for (int nativeThreads : threadCounts(cores)) {
+                environment.setMaxThreads(nativeThreads);
+                blas.setMaxThreads(nativeThreads);
+                model.fit(data); // warm up
+                long start = System.nanoTime();
+                for (int i = 0; i < TRAINING_ITERATIONS; i++) {
+                    model.fit(data);
+                }
+                double samplesPerSecond = (double) TRAINING_EXAMPLES * TRAINING_ITERATIONS / ((System.nanoTime() - start) / 1_000_000_000.0);
+                System.out.println(String.format("%-17d %12.1f", nativeThreads, samplesPerSecond));
+                if (samplesPerSecond > bestSamplesPerSecond) {
+                    bestSamplesPerSecond = samplesPerSecond;
+                    bestNativeThreads = nativeThreads;
+                }
+            }
+        } finally {
+            environment.setMaxThreads(previousMaxThreads);
+            blas.setMaxThreads(previousBlasThreads);
+        }
+
+        ThreadCalibration calibration = new ThreadCalibration(cores, bestWorkers, bestOpenCvThreads, bestNativeThreads,
+                bestNativeThreads, bestImagesPerSecond, bestSamplesPerSecond, Instant.now().toString());
+        try {
+            Files.writeString(calibrationFile, gson.toJson(calibration), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the thread calibration to " + calibrationFile, e);
+        }
+        System.out.println("Chosen: " + calibration);
+        return calibration;
+    }
+
+    private double measurePreprocessing(List<Mat> images, int workers, int openCvThreads) {
+        int previousOpenCvThreads = Core.getNumThreads();
+        Core.setNumThreads(openCvThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            preprocess(images, executor); // warm up
+            long start = System.nanoTime();
+            preprocess(images, executor);
+            return images.size() / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            executor.shutdown();
+            Core.setNumThreads(previousOpenCvThreads);
+        }
+    }
+
+    private void preprocess(List<Mat> images, ExecutorService executor) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Mat image : images) {
+            futures.add(executor.submit(() -> {
+                Mat cropped = new ImageCropper().withProxyScaleFactor(dataSetBuilder.getCropProxyScaleFactor()).cropSign(image);
+                dataSetBuilder.toFeatureVector(cropped);
+                if (cropped != image) {
+                    cropped.release();
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread calibration was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Preprocessing a synthetic image failed", e.getCause());
+        }
+    }
+
+    private static List<Mat> renderImages() {
+        SyntheticSignGenerator generator = new SyntheticSignGenerator(1).withImageSize(SYNTHETIC_IMAGE_SIZE);
+        SignClassification[] classifications = SignClassification.values();
+        List<Mat> images = new ArrayList<>();
+        for (int i = 0; i < PREPROCESSING_IMAGES; i++) {
+            Mat bgr = generator.render(classifications[i % classifications.length], i);
+            Mat rgba = new Mat();
+            Imgproc.cvtColor(bgr, rgba, Imgproc.COLOR_BGR2RGBA);
+            bgr.release();
+            images.add(rgba);
+        }
+        return images;
+    }
+
+    private DataSet createRandomDataSet() {
+        INDArray features = Nd4j.rand(TRAINING_EXAMPLES, dataSetBuilder.getInputSize());
+        INDArray labels = Nd4j.zeros(TRAINING_EXAMPLES, SignClassification.values().length);
+        for (int i = 0; i < TRAINING_EXAMPLES; i++) {
+            labels.putScalar(i, i % SignClassification.values().length, 1.0);
+        }
+        return new DataSet(features, labels);
+    }
+
+    /**
+     * @return 1, 2, 4, ... up to the number of cores, and the number of cores itself.
+     */
+    private static List<Integer> threadCounts(int cores) {
+        List<Integer> counts = new ArrayList<>();
+        for (int count = 1; count < cores; count *= 2) {
+            counts.add(count);
+        }
+        counts.add(cores);
+        return counts;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.daemon;
+
+import org.example.deep_learing_network.HiddenLayerSpec;
+
+import java.util.List;
+
+/**
+ * A job sent to the {@link WarmDaemon} as a single line of JSON. Only the fields required by the job type have to be set.
+ *
+ * @param type              The kind of job.
+ * @param imagesForTraining BUILD_DATASET: the number of images for the training set.
+ * @param imagesForTesting  BUILD_DATASET: the number of images for the testing set.
+ * @param rows              BUILD_DATASET, PREDICT: the target number of rows of the scaled images.
+ * @param cols              BUILD_DATASET, PREDICT: the target number of columns of the scaled images.
+ * @param trainingDataFile  BUILD_DATASET: where to save the training set. TRAIN: the training set to use.
+ * @param testingDataFile   BUILD_DATASET: where to save the testing set. EVALUATE: the testing set to use.
+ * @param modelFile         TRAIN: where to save the model. EVALUATE, PREDICT: the model to use.
+ * @param imagePath         PREDICT: the image to classify.
+ * @param hiddenLayers      TRAIN: the hidden layer configuration.
+ * @param learningRate      TRAIN: the learning rate, the default of the {@code ModelBuilder} is used if not set.
+ * @param epochs            TRAIN: the number of epochs, the default of the {@code ModelBuilder} is used if not set.
+ * @param sigmoidK          TRAIN: if set, the hidden layers use a {@code ParametricSigmoid} with this parameter.
+ */
+public record DaemonJob(JobType type,
+                        int imagesForTraining,
+                        int imagesForTesting,
+                        int rows,
+                        int cols,
+                        String trainingDataFile,
+                        String testingDataFile,
+                        String modelFile,
+                        String imagePath,
+                        List<HiddenLayerSpec> hiddenLayers,
+                        double learningRate,
+                        int epochs,
+                        Double sigmoidK) {
+}
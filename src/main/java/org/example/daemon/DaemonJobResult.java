@@ -0,0 +1,14 @@
+package org.example.daemon;
+
+import java.util.Map;
+
+/**
+ * The answer of the {@link WarmDaemon} to a {@link DaemonJob}, sent back as a single line of JSON.
+ *
+ * @param success Whether the job finished without an error.
+ * @param error   The error message if the job failed, otherwise {@code null}.
+ * @param millis  The time the daemon spent on the job in milliseconds.
+ * @param result  The job specific results, e.g. the accuracy of an evaluation.
+ */
+public record DaemonJobResult(boolean success, String error, double millis, Map<String, Object> result) {
+}
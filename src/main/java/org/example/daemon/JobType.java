@@ -0,0 +1,8 @@
+package org.example.daemon;
+
+/**
+ * The kinds of jobs the {@link WarmDaemon} accepts.
+ */
+public enum JobType {
+    BUILD_DATASET, TRAIN, EVALUATE, PREDICT, SHUTDOWN
+}
@@ -0,0 +1,305 @@
+package org.example.daemon;
+
+import com.google.gson.Gson;
+import kotlin.Pair;
+import nu.pattern.OpenCV;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.example.SignClassification;
+import org.example.deep_learing_network.DataSetBuilder;
+import org.example.deep_learing_network.Evaluator;
+import org.example.deep_learing_network.HiddenLayerSpec;
+import org.example.deep_learing_network.ModelBuilder;
+import org.example.deep_learing_network.ModelBuilderWithParametricSigmoid;
+import org.example.image_loader.CroppedImageCache;
+import org.example.image_loader.ImageLoader;
+import org.example.image_loader.ImageLoaderResult;
+import org.example.image_loader.LoadableImage;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A long-running daemon that keeps OpenCV, the ND4J backend and the JIT-compiled code warm between jobs.
+ *
+ * <p>Jobs are sent as single lines of JSON ({@link DaemonJob}) to a socket on the loopback interface, every job is
+ * answered with a single line of JSON ({@link DaemonJobResult}) containing its result and timing. Datasets and models
+ * are cached between jobs as long as their files do not change. Jobs can be sent with {@link #sendJob(String, int)},
+ * e.g. {@code echo '{"type":"EVALUATE","modelFile":"model.zip","testingDataFile":"testingData.bin"}' | nc localhost 5555}.</p>
+ */
+public class WarmDaemon {
+    public static final int DEFAULT_PORT = 5555;
+    private static final long CROPPED_IMAGE_CACHE_BYTES = 1024L * 1024 * 1024;
+
+    private final int port;
+    private final Gson gson = new Gson();
+    // Keyed by the absolute path, so a changed file replaces the previous version instead of being cached next to it
+    private final Map<String, Cached<DataSet>> dataSetCache = new HashMap<>();
+    private final Map<String, Cached<MultiLayerNetwork>> modelCache = new HashMap<>();
+    // Builds with other dimensions reuse the decoded and cropped images of previous jobs
+    private final CroppedImageCache croppedImageCache = new CroppedImageCache(CROPPED_IMAGE_CACHE_BYTES);
+    private boolean running = true;
+
+    public WarmDaemon(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Initializes the native libraries, warms up the JIT and then accepts jobs until a SHUTDOWN job is received.
+     * Jobs are executed one after another in the order they arrive.
+     */
+    public void run() {
+        long start = System.nanoTime();
+        warmUp();
+        System.out.println("Daemon warmed up in " + String.format("%.0f", (System.nanoTime() - start) / 1_000_000.0) + " ms");
+
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Daemon listening on " + serverSocket.getLocalSocketAddress());
+            while (running) {
+                try (Socket socket = serverSocket.accept();
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                     PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+                    String line;
+                    while (running && (line = reader.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            writer.println(gson.toJson(execute(line)));
+                        }
+                    }
+                } catch (IOException e) {
+                    System.out.println("Connection to daemon client failed: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open daemon socket on port " + port, e);
+        } finally {
+            croppedImageCache.clear();
+        }
+        System.out.println("Daemon stopped");
+    }
+
+    /**
+     * Executes a single job and measures the time spent on it.
+     *
+     * @param json The job as JSON.
+     * @return The result of the job, including the error message if it failed.
+     */
+    public DaemonJobResult execute(String json) {
+        long start = System.nanoTime();
+        try {
+            DaemonJob job = gson.fromJson(json, DaemonJob.class);
+            if (job == null || job.type() == null) {
+                throw new IllegalArgumentException("The job type must be set");
+            }
+            Map<String, Object> result = switch (job.type()) {
+                case BUILD_DATASET -> buildDataSet(job);
+                case TRAIN -> train(job);
+                case EVALUATE -> evaluate(job);
+                case PREDICT -> predict(job);
+                case SHUTDOWN -> {
+                    running = false;
+                    yield Map.of();
+                }
+            };
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            System.out.println("Job " + job.type() + " finished in " + String.format("%.1f", millis) + " ms");
+            return new DaemonJobResult(true, null, millis, result);
+        } catch (RuntimeException | OutOfMemoryError | LinkageError e) {
+            // Errors of a single job, e.g. a too large dataset or a missing native library, must not stop the daemon
+            if (e instanceof OutOfMemoryError) {
+                dataSetCache.clear();
+                modelCache.clear();
+            }
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            System.out.println("Job failed after " + String.format("%.1f", millis) + " ms: " + e);
+            return new DaemonJobResult(false, String.valueOf(e), millis, Map.of());
+        }
+    }
+
+    /**
+     * Sends a single job to a running daemon and waits for its result.
+     *
+     * @param json The job as JSON.
+     * @param port The port of the daemon.
+     * @return The result of the job as JSON.
+     */
+    public static String sendJob(String json, int port) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            writer.println(json.replace('\n', ' '));
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not send job to daemon on port " + port, e);
+        }
+    }
+
+    private Map<String, Object> buildDataSet(DaemonJob job) {
+        requireSet(job.trainingDataFile(), "trainingDataFile");
+        requireSet(job.testingDataFile(), "testingDataFile");
+        ImageLoaderResult loaderResult = new ImageLoader(job.imagesForTraining(), job.imagesForTesting()).loadImages();
+
+        DataSetBuilder dataSetBuilder = new DataSetBuilder()
+                .withTargetDimensions(job.rows(), job.cols())
+                .withNumClasses(SignClassification.values().length)
+                .withCroppedImageCache(croppedImageCache);
+        DataSet trainingData = dataSetBuilder.withImages(loaderResult.imagesForTraining()).build();
+        DataSet testingData = dataSetBuilder.withImages(loaderResult.imagesForTesting()).build();
+
+        File trainingDataFile = new File(job.trainingDataFile());
+        File testingDataFile = new File(job.testingDataFile());
+        trainingData.save(trainingDataFile);
+        testingData.save(testingDataFile);
+        cache(dataSetCache, trainingDataFile, trainingData);
+        cache(dataSetCache, testingDataFile, testingData);
+
+        return Map.of("trainingExamples", trainingData.numExamples(), "testingExamples", testingData.numExamples(),
+                "croppedImageCache", croppedImageCache.getStatistics());
+    }
+
+    private Map<String, Object> train(DaemonJob job) {
+        requireSet(job.modelFile(), "modelFile");
+        if (job.hiddenLayers() == null || job.hiddenLayers().isEmpty()) {
+            throw new IllegalArgumentException("The job field hiddenLayers must be set");
+        }
+        DataSet trainingData = loadDataSet(job.trainingDataFile());
+
+        ModelBuilder modelBuilder = new ModelBuilder()
+                .withInputSize(trainingData.getFeatures().columns())
+                .withOutputSize(SignClassification.values().length)
+                .withOutputLayerActivation(Activation.SOFTMAX)
+                .withHiddenLayerConfig(HiddenLayerSpec.toHiddenLayerConfig(job.hiddenLayers()));
+        if (job.learningRate() > 0) {
+            modelBuilder.withLearningRate(job.learningRate());
+        }
+        if (job.epochs() > 0) {
+            modelBuilder.withNumEpochs(job.epochs());
+        }
+        if (job.sigmoidK() != null) {
+            modelBuilder = ModelBuilderWithParametricSigmoid.createFromDefaultModelBuilder(modelBuilder).withAlpha(job.sigmoidK());
+        }
+        MultiLayerNetwork model = modelBuilder.buildAndTrain(trainingData);
+
+        File modelFile = new File(job.modelFile());
+        try {
+            ModelSerializer.writeModel(model, modelFile, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save model to " + modelFile, e);
+        }
+        cache(modelCache, modelFile, model);
+
+        return Map.of("parameters", model.numParams(), "modelFile", modelFile.getAbsolutePath());
+    }
+
+    private Map<String, Object> evaluate(DaemonJob job) {
+        MultiLayerNetwork model = loadModel(job.modelFile());
+        DataSet testingData = loadDataSet(job.testingDataFile());
+        Evaluation evaluation = new Evaluator(model, testingData).getEvaluationResult();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accuracy", evaluation.accuracy());
+        result.put("precision", evaluation.precision());
+        result.put("recall", evaluation.recall());
+        result.put("f1", evaluation.f1());
+        return result;
+    }
+
+    private Map<String, Object> predict(DaemonJob job) {
+        requireSet(job.imagePath(), "imagePath");
+        MultiLayerNetwork model = loadModel(job.modelFile());
+        float[] features = new DataSetBuilder()
+                .withTargetDimensions(job.rows(), job.cols())
+                .buildFeatureVector(new LoadableImage(job.imagePath(), null));
+
+        INDArray output = model.output(Nd4j.create(new float[][]{features}), false);
+        SignClassification classification = SignClassification.values()[output.argMax(1).getInt(0)];
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("classification", classification.name());
+        result.put("probabilities", output.toFloatVector());
+        return result;
+    }
+
+    private DataSet loadDataSet(String path) {
+        requireSet(path, "data file");
+        File file = new File(path);
+        return getOrLoad(dataSetCache, file, () -> {
+            DataSet dataSet = new DataSet();
+            dataSet.load(file);
+            return dataSet;
+        });
+    }
+
+    private MultiLayerNetwork loadModel(String path) {
+        requireSet(path, "modelFile");
+        File file = new File(path);
+        return getOrLoad(modelCache, file, () -> {
+            try {
+                return ModelSerializer.restoreMultiLayerNetwork(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load model from " + file, e);
+            }
+        });
+    }
+
+    /**
+     * Cache entries are bound to the modification time of the file, so files changed outside the daemon are reloaded
+     * and replace the previous version.
+     */
+    private static <T> T getOrLoad(Map<String, Cached<T>> cache, File file, Supplier<T> loader) {
+        Cached<T> cached = cache.get(file.getAbsolutePath());
+        if (cached != null && cached.lastModified() == file.lastModified()) {
+            return cached.value();
+        }
+        T value = loader.get();
+        cache(cache, file, value);
+        return value;
+    }
+
+    private static <T> void cache(Map<String, Cached<T>> cache, File file, T value) {
+        cache.put(file.getAbsolutePath(), new Cached<>(file.lastModified(), value));
+    }
+
+    private static void requireSet(String value, String fieldName) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("The job field " + fieldName + " must be set");
+        }
+    }
+
+    /**
+     * Loads the native libraries and trains a tiny network once, so that the first real job does not pay for the
+     * backend initialization and the JIT compilation of the training code.
+     */
+    private static void warmUp() {
+        OpenCV.loadShared();
+
+        int numClasses = SignClassification.values().length;
+        INDArray labels = Nd4j.zeros(32, numClasses);
+        for (int i = 0; i < 32; i++) {
+            labels.putScalar(i, i % numClasses, 1.0);
+        }
+        DataSet warmUpData = new DataSet(Nd4j.rand(32, 16), labels);
+        new ModelBuilder()
+                .withInputSize(16)
+                .withOutputSize(numClasses)
+                .withHiddenLayerConfig(List.of(new Pair<>(8, Activation.RELU)))
+                .withNumEpochs(50)
+                .withLogFrequency(Integer.MAX_VALUE)
+                .buildAndTrain(warmUpData);
+    }
+
+    private record Cached<T>(long lastModified, T value) {
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.deep_learing_network;
+
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the compute cost of activation functions at the widths of the hidden layers.
+ *
+ * <p>The matrix multiplications of a dense layer cost the same for every activation function, so only the forward pass
+ * ({@link IActivation#getActivation}) and the backward pass ({@link IActivation#backprop}) of the activation are timed,
+ * on random pre-activations of the size of a training batch.</p>
+ */
+public class ActivationProfiler {
+    private static final int WARM_UP_REPETITIONS = 20;
+
+    private final List<Integer> layerWidths;
+    private final int batchSize;
+    private int repetitions = 200;
+
+    /**
+     * @param layerWidths The number of neurons of every hidden layer, e.g. 500, 250, 128 and 64.
+     * @param batchSize   The number of examples per training batch.
+     */
+    public ActivationProfiler(List<Integer> layerWidths, int batchSize) {
+        this.layerWidths = layerWidths;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets how often every pass is timed, the reported times are averages. Defaults to 200.
+     *
+     * @param repetitions The number of timed repetitions per layer and pass.
+     * @return The current instance of {@link ActivationProfiler} for chaining.
+     */
+    public ActivationProfiler withRepetitions(int repetitions) {
+        this.repetitions = repetitions;
+        return this;
+    }
+
+    /**
+     * Measures the average forward and backward time of an activation function for every layer width.
+     *
+     * @param name       The name of the activation function used in reports.
+     * @param activation The activation function to profile.
+     * @return The measured cost per layer.
+     */
+    public ActivationCost profile(String name, IActivation activation) {
+        double[] forwardMillis = new double[layerWidths.size()];
+        double[] backwardMillis = new double[layerWidths.size()];
+
+        for (int layer = 0; layer < layerWidths.size(); layer++) {
+            INDArray preActivation = Nd4j.randn(batchSize, layerWidths.get(layer));
+            INDArray epsilon = Nd4j.randn(batchSize, layerWidths.get(layer));
+
+            for (int i = 0; i < WARM_UP_REPETITIONS; i++) {
+                activation.getActivation(preActivation.dup(), true);
+                activation.backprop(preActivation.dup(), epsilon.dup());
+            }
+
+            // The activations work in place, so every repetition gets its own copy, created outside the timed section
+            long forwardNanos = 0;
+            long backwardNanos = 0;
+            for (int i = 0; i < repetitions; i++) {
+                INDArray forwardInput = preActivation.dup();
+                long start = System.nanoTime();
+                activation.getActivation(forwardInput, true);
+                forwardNanos += System.nanoTime() - start;
+
+                INDArray backwardInput = preActivation.dup();
+                INDArray backwardEpsilon = epsilon.dup();
+                start = System.nanoTime();
+                activation.backprop(backwardInput, backwardEpsilon);
+                backwardNanos += System.nanoTime() - start;
+            }
+            forwardMillis[layer] = forwardNanos / 1_000_000.0 / repetitions;
+            backwardMillis[layer] = backwardNanos / 1_000_000.0 / repetitions;
+        }
+        return new ActivationCost(name, new ArrayList<>(layerWidths), forwardMillis, backwardMillis);
+    }
+
+    /**
+     * The measured cost of an activation function.
+     *
+     * @param name           The name of the activation function.
+     * @param layerWidths    The widths of the profiled layers.
+     * @param forwardMillis  The average forward time per layer in milliseconds.
+     * @param backwardMillis The average backward time per layer in milliseconds.
+     */
+    public record ActivationCost(String name, List<Integer> layerWidths, double[] forwardMillis, double[] backwardMillis) {
+
+        public double totalForwardMillis() {
+            double total = 0;
+            for (double millis : forwardMillis) {
+                total += millis;
+            }
+            return total;
+        }
+
+        public double totalBackwardMillis() {
+            double total = 0;
+            for (double millis : backwardMillis) {
+                total += millis;
+            }
+            return total;
+        }
+
+        public double totalMillis() {
+            return totalForwardMillis() + totalBackwardMillis();
+        }
+    }
+}
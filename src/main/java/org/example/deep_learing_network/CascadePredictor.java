@@ -0,0 +1,117 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+
+/**
+ * Classifies images with a small, cheap model first and escalates only the images it is unsure about to a large model.
+ *
+ * <p>An image is escalated if the highest softmax probability of the small model is below the confidence threshold.
+ * The small model may use a lower resolution than the large model, so every prediction takes the features at both
+ * resolutions, e.g. from {@link DataSetBuilder#buildMultiResolution}. The features are expected in the data type and
+ * layout of the models.</p>
+ */
+public class CascadePredictor {
+    private final MultiLayerNetwork smallModel;
+    private final MultiLayerNetwork largeModel;
+    private final double confidenceThreshold;
+
+    /**
+     * @param smallModel          The small model, which classifies every image.
+     * @param largeModel          The large model, which classifies the escalated images.
+     * @param confidenceThreshold The minimum probability of a prediction of the small model to be accepted.
+     */
+    public CascadePredictor(MultiLayerNetwork smallModel, MultiLayerNetwork largeModel, double confidenceThreshold) {
+        this.smallModel = smallModel;
+        this.largeModel = largeModel;
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    /**
+     * Classifies a single image.
+     *
+     * @param smallFeatures The features of the image for the small model, as a row vector.
+     * @param largeFeatures The features of the image for the large model, as a row vector.
+     * @return The predicted class and whether the image was escalated to the large model.
+     */
+    public Prediction predict(INDArray smallFeatures, INDArray largeFeatures) {
+        INDArray probabilities = smallModel.output(smallFeatures, false);
+        int classIndex = probabilities.argMax(1).getInt(0);
+        if (probabilities.getDouble(0, classIndex) >= confidenceThreshold) {
+            return new Prediction(classIndex, false);
+        }
+        return new Prediction(largeModel.output(largeFeatures, false).argMax(1).getInt(0), true);
+    }
+
+    /**
+     * Classifies every image of the testing data one at a time, as frames arrive in production, and compares the
+     * cascade with always running the large model.
+     *
+     * @param smallTestingData The testing data at the resolution of the small model.
+     * @param largeTestingData The same images in the same order at the resolution of the large model.
+     * @return The escalation rate, the accuracies and the average latencies.
+     * @throws IllegalArgumentException if the datasets have a different number of examples.
+     */
+    public CascadeReport evaluate(DataSet smallTestingData, DataSet largeTestingData) {
+        int examples = smallTestingData.numExamples();
+        if (largeTestingData.numExamples() != examples) {
+            throw new IllegalArgumentException("Both testing datasets must contain the same images");
+        }
+        INDArray smallFeatures = smallTestingData.getFeatures().castTo(smallModel.params().dataType());
+        INDArray largeFeatures = largeTestingData.getFeatures().castTo(largeModel.params().dataType());
+        INDArray labels = largeTestingData.getLabels();
+
+        for (int i = 0; i < examples; i++) {
+            predict(smallFeatures.getRow(i, true), largeFeatures.getRow(i, true)); // warm up
+            largeModel.output(largeFeatures.getRow(i, true), false);
+        }
+
+        int escalated = 0;
+        int cascadeCorrect = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < examples; i++) {
+            Prediction prediction = predict(smallFeatures.getRow(i, true), largeFeatures.getRow(i, true));
+            escalated += prediction.escalated() ? 1 : 0;
+            cascadeCorrect += prediction.classIndex() == labels.getRow(i).argMax().getInt(0) ? 1 : 0;
+        }
+        double cascadeMicros = (System.nanoTime() - start) / 1000.0 / Math.max(examples, 1);
+
+        int largeCorrect = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < examples; i++) {
+            int classIndex = largeModel.output(largeFeatures.getRow(i, true), false).argMax(1).getInt(0);
+            largeCorrect += classIndex == labels.getRow(i).argMax().getInt(0) ? 1 : 0;
+        }
+        double largeMicros = (System.nanoTime() - start) / 1000.0 / Math.max(examples, 1);
+
+        return new CascadeReport(confidenceThreshold, (double) escalated / examples, (double) cascadeCorrect / examples,
+                (double) largeCorrect / examples, cascadeMicros, largeMicros);
+    }
+
+    /**
+     * @param classIndex The predicted class.
+     * @param escalated  Whether the large model made the prediction.
+     */
+    public record Prediction(int classIndex, boolean escalated) {
+    }
+
+    /**
+     * @param confidenceThreshold The confidence threshold of the cascade.
+     * @param escalationRate      The fraction of images escalated to the large model.
+     * @param cascadeAccuracy     The accuracy of the cascade.
+     * @param largeModelAccuracy  The accuracy of always running the large model.
+     * @param cascadeMicros       The average latency of the cascade per image in microseconds.
+     * @param largeModelMicros    The average latency of the large model per image in microseconds.
+     */
+    public record CascadeReport(double confidenceThreshold, double escalationRate, double cascadeAccuracy,
+                                double largeModelAccuracy, double cascadeMicros, double largeModelMicros) {
+
+        @Override
+        public String toString() {
+            return String.format("Threshold %.2f: %.1f %% escalated, accuracy %.4f (large model %.4f), %.1f µs per image"
+                            + " (large model %.1f µs, %.2fx faster)", confidenceThreshold, escalationRate * 100,
+                    cascadeAccuracy, largeModelAccuracy, cascadeMicros, largeModelMicros, largeModelMicros / cascadeMicros);
+        }
+    }
+}
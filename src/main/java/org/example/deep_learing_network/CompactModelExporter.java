@@ -0,0 +1,148 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.layers.BaseLayer;
+import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.example.ParametricSigmoid;
+import org.example.inference.CompactActivation;
+import org.example.inference.CompactLayer;
+import org.example.inference.CompactModel;
+import org.example.inference.CompactModelWriter;
+import org.example.inference.Quantization;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.activations.impl.*;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports a trained dense {@link MultiLayerNetwork}, as built by the {@link ModelBuilder}, to the compact model format
+ * that can be evaluated by the dependency-free {@link CompactModel}.
+ */
+public class CompactModelExporter {
+    /**
+     * Layers with at most this fraction of non-zero weights, e.g. after pruning, are exported in CSR format.
+     */
+    static final double SPARSE_LAYER_MAX_DENSITY = 0.5;
+
+    /**
+     * Converts the layers of a trained network to a {@link CompactModel}.
+     *
+     * @param model The trained network consisting of dense layers and an output layer.
+     * @return The compact model with the full precision weights of the network.
+     * @throws IllegalArgumentException if the network contains a layer or activation that cannot be exported.
+     */
+    public CompactModel toCompactModel(MultiLayerNetwork model) {
+        List<CompactLayer> layers = new ArrayList<>();
+        for (Layer layer : model.getLayers()) {
+            if (!(layer.conf().getLayer() instanceof FeedForwardLayer feedForwardLayer)
+                    || layer.getParam("W") == null || layer.getParam("b") == null) {
+                throw new IllegalArgumentException("Only dense layers can be exported, found " + layer.conf().getLayer().getClass().getSimpleName());
+            }
+
+            int inputSize = (int) feedForwardLayer.getNIn();
+            int outputSize = (int) feedForwardLayer.getNOut();
+            // The weights are stored as [nIn, nOut], the compact model expects the weights of one neuron to be contiguous
+            float[] weights = layer.getParam("W").transpose().castTo(DataType.FLOAT).ravel('c').toFloatVector();
+            float[] biases = layer.getParam("b").castTo(DataType.FLOAT).ravel('c').toFloatVector();
+
+            IActivation activation = ((BaseLayer) feedForwardLayer).getActivationFn();
+            float activationParameter = activation instanceof ParametricSigmoid parametricSigmoid ? (float) parametricSigmoid.getK() : 0f;
+            layers.add(new CompactLayer(inputSize, outputSize, weights, biases, toCompactActivation(activation), activationParameter));
+        }
+        return new CompactModel(layers);
+    }
+
+    /**
+     * Exports a trained network to a compact model file.
+     *
+     * @param model        The trained network.
+     * @param file         The target file.
+     * @param quantization The encoding of the weights.
+     * @throws IOException if the file cannot be written.
+     */
+    public void export(MultiLayerNetwork model, Path file, Quantization quantization) throws IOException {
+        new CompactModelWriter(quantization).write(toCompactModel(model).withSparseLayers(SPARSE_LAYER_MAX_DENSITY), file);
+        System.out.println("Exported model with " + model.numParams() + " parameters to " + file
+                + " (" + Files.size(file) / 1024 + " KiB, " + quantization + ")");
+    }
+
+    /**
+     * Compares the outputs of the compact model with the outputs of ND4J on the given dataset and prints the result.
+     *
+     * @param model        The network the compact model was exported from.
+     * @param compactModel The loaded compact model.
+     * @param data         The dataset to compare the outputs on.
+     * @return The largest absolute difference between any output of the two models.
+     */
+    public double verifyParity(MultiLayerNetwork model, CompactModel compactModel, DataSet data) {
+        INDArray expected = model.output(data.getFeatures(), false).castTo(DataType.FLOAT);
+        INDArray features = data.getFeatures().castTo(DataType.FLOAT);
+
+        double maxDifference = 0.0;
+        int sameClass = 0;
+        long totalNanos = 0;
+        for (int example = 0; example < features.rows(); example++) {
+            float[] input = features.getRow(example).toFloatVector();
+            float[] expectedOutput = expected.getRow(example).toFloatVector();
+
+            long start = System.nanoTime();
+            float[] output = compactModel.predict(input);
+            totalNanos += System.nanoTime() - start;
+
+            int expectedClass = 0;
+            int actualClass = 0;
+            for (int i = 0; i < output.length; i++) {
+                maxDifference = Math.max(maxDifference, Math.abs(output[i] - expectedOutput[i]));
+                expectedClass = expectedOutput[i] > expectedOutput[expectedClass] ? i : expectedClass;
+                actualClass = output[i] > output[actualClass] ? i : actualClass;
+            }
+            sameClass += expectedClass == actualClass ? 1 : 0;
+        }
+
+        System.out.println("Compact model parity: max absolute difference " + maxDifference
+                + ", same class for " + sameClass + " of " + features.rows() + " examples"
+                + ", average latency " + String.format("%.1f", totalNanos / 1000.0 / Math.max(features.rows(), 1)) + " µs");
+        return maxDifference;
+    }
+
+    private static CompactActivation toCompactActivation(IActivation activation) {
+        if (activation instanceof ParametricSigmoid) {
+            return CompactActivation.PARAMETRIC_SIGMOID;
+        } else if (activation instanceof ActivationIdentity) {
+            return CompactActivation.IDENTITY;
+        } else if (activation instanceof ActivationReLU) {
+            return CompactActivation.RELU;
+        } else if (activation instanceof ActivationSigmoid) {
+            return CompactActivation.SIGMOID;
+        } else if (activation instanceof ActivationTanH) {
+            return CompactActivation.TANH;
+        } else if (activation instanceof ActivationHardTanH) {
+            return CompactActivation.HARDTANH;
+        } else if (activation instanceof ActivationHardSigmoid) {
+            return CompactActivation.HARDSIGMOID;
+        } else if (activation instanceof ActivationSoftmax) {
+            return CompactActivation.SOFTMAX;
+        } else if (activation instanceof ActivationSELU) {
+            return CompactActivation.SELU;
+        } else if (activation instanceof ActivationELU) {
+            return CompactActivation.ELU;
+        } else if (activation instanceof ActivationSoftPlus) {
+            return CompactActivation.SOFTPLUS;
+        } else if (activation instanceof ActivationSwish) {
+            return CompactActivation.SWISH;
+        } else if (activation instanceof ActivationGELU) {
+            return CompactActivation.GELU;
+        } else if (activation instanceof ActivationMish) {
+            return CompactActivation.MISH;
+        }
+        throw new IllegalArgumentException("Activation function " + activation + " is not supported by the compact model");
+    }
+}
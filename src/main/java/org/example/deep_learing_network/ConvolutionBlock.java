@@ -0,0 +1,14 @@
+package org.example.deep_learing_network;
+
+import org.nd4j.linalg.activations.Activation;
+
+/**
+ * Describes one block of a convolutional network: a convolution layer, optionally followed by a max pooling layer.
+ *
+ * @param filters     The number of filters (output channels) of the convolution layer.
+ * @param kernelSize  The width and height of the square convolution kernel.
+ * @param activation  The activation function of the convolution layer.
+ * @param poolingSize The width, height and stride of the max pooling layer. A value of 1 or less disables pooling.
+ */
+public record ConvolutionBlock(int filters, int kernelSize, Activation activation, int poolingSize) {
+}
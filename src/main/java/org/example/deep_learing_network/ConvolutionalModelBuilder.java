@@ -0,0 +1,169 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.conf.ConvolutionMode;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.SubsamplingLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A builder class for constructing and training a small convolutional {@link MultiLayerNetwork}.
+ *
+ * <p>The network consists of the configured {@link ConvolutionBlock}s, followed by the optional dense hidden layers
+ * of the {@link ModelBuilder} and the output layer. It consumes the flattened output of the {@link DataSetBuilder},
+ * which is reshaped to {@code [channels, rows, cols]} by {@link #toConvolutionalDataSet(DataSet)}.</p>
+ */
+public class ConvolutionalModelBuilder extends ModelBuilder {
+    private int inputChannels;
+    private int inputRows;
+    private int inputCols;
+    private List<ConvolutionBlock> convolutionBlocks = new ArrayList<>();
+
+    /**
+     * Sets the shape of a single input image. Also sets the input size of the model accordingly.
+     *
+     * @param channels The number of channels per pixel (4 for RGBA, 3 for RGB).
+     * @param rows     The number of rows (height) of the image.
+     * @param cols     The number of columns (width) of the image.
+     * @return The current instance of {@link ConvolutionalModelBuilder} for chaining.
+     */
+    public ConvolutionalModelBuilder withInputShape(int channels, int rows, int cols) {
+        this.inputChannels = channels;
+        this.inputRows = rows;
+        this.inputCols = cols;
+        this.inputSize = channels * rows * cols;
+        return this;
+    }
+
+    /**
+     * Sets the convolution blocks of the model.
+     * The first element of the list is applied directly to the input image, the last element is followed by the
+     * dense hidden layers (if any) and the output layer.
+     *
+     * @param convolutionBlocks The convolution blocks of the model.
+     * @return The current instance of {@link ConvolutionalModelBuilder} for chaining.
+     */
+    public ConvolutionalModelBuilder withConvolutionBlocks(List<ConvolutionBlock> convolutionBlocks) {
+        this.convolutionBlocks = convolutionBlocks;
+        return this;
+    }
+
+    /**
+     * Creates the configuration of the convolutional network, see {@link ModelBuilder#buildConfiguration()}.
+     *
+     * @return The network configuration.
+     * @throws IllegalStateException if the input shape, output size or convolution blocks are not set.
+     */
+    @Override
+    public MultiLayerConfiguration buildConfiguration() {
+        validate();
+
+        NeuralNetConfiguration.ListBuilder listBuilder = createNetworkConfiguration().list();
+
+        // Convolution blocks, the input sizes are inferred from the input type
+        for (ConvolutionBlock block : convolutionBlocks) {
+            listBuilder.layer(new ConvolutionLayer.Builder(block.kernelSize(), block.kernelSize())
+                    .nOut(block.filters())
+                    .stride(1, 1)
+                    .convolutionMode(ConvolutionMode.Same)
+                    .activation(block.activation())
+                    .build());
+            if (block.poolingSize() > 1) {
+                listBuilder.layer(new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX)
+                        .kernelSize(block.poolingSize(), block.poolingSize())
+                        .stride(block.poolingSize(), block.poolingSize())
+                        .build());
+            }
+        }
+
+        // Optional dense layers between the convolution blocks and the output layer
+        if (hiddenLayerConfig != null) {
+            for (var layer : hiddenLayerConfig) {
+                listBuilder.layer(new DenseLayer.Builder()
+                        .nOut(layer.getFirst())
+                        .activation(layer.getSecond())
+                        .build());
+            }
+        }
+
+        listBuilder.layer(new OutputLayer.Builder(LossFunctions.LossFunction.NEGATIVELOGLIKELIHOOD)
+                .nOut(outputSize)
+                .activation(outputLayerActivation)
+                .build());
+        listBuilder.setInputType(InputType.convolutional(inputRows, inputCols, inputChannels));
+
+        return listBuilder.build();
+    }
+
+    @Override
+    protected void validate() {
+        if (inputChannels <= 0 || inputRows <= 0 || inputCols <= 0) {
+            throw new IllegalStateException("Input shape must be set and positive. Use withInputShape() to specify it.");
+        }
+        if (outputSize <= 0) {
+            throw new IllegalStateException("Output size must be set and greater than 0. Use withOutputSize() to specify it.");
+        }
+        if (convolutionBlocks == null || convolutionBlocks.isEmpty()) {
+            throw new IllegalStateException("Convolution blocks must be set. Use withConvolutionBlocks() to specify them.");
+        }
+        validateDataTypes();
+    }
+
+    @Override
+    public DataSet prepareDataSet(DataSet data) {
+        return toConvolutionalDataSet(data);
+    }
+
+    /**
+     * Reshapes a dataset produced by the {@link DataSetBuilder} to the {@code [examples, channels, rows, cols]} layout
+     * expected by the convolution layers. The {@link DataSetBuilder} stores the channels of each pixel next to each other,
+     * so the features are reshaped to {@code [examples, rows, cols, channels]} first and then permuted.
+     *
+     * @param flatData The dataset with flattened features.
+     * @return A dataset with the same labels and the features in the convolutional layout.
+     * @throws IllegalStateException if the input shape is not set or does not match the features.
+     */
+    public DataSet toConvolutionalDataSet(DataSet flatData) {
+        INDArray flatFeatures = flatData.getFeatures();
+        if (flatFeatures.rank() == 4) {
+            return flatData;
+        }
+        if (flatFeatures.columns() != (long) inputChannels * inputRows * inputCols) {
+            throw new IllegalStateException("Features do not match the input shape. Use withInputShape() to specify it.");
+        }
+
+        INDArray features = flatFeatures
+                .reshape('c', flatFeatures.rows(), inputRows, inputCols, inputChannels)
+                .permute(0, 3, 1, 2)
+                .dup('c');
+        return new DataSet(features, flatData.getLabels());
+    }
+
+    public static ConvolutionalModelBuilder createFromDefaultModelBuilder(ModelBuilder other) {
+        ConvolutionalModelBuilder modelBuilder = new ConvolutionalModelBuilder();
+        modelBuilder.seed = other.seed;
+        modelBuilder.outputSize = other.outputSize;
+        modelBuilder.learningRate = other.learningRate;
+        modelBuilder.numEpochs = other.numEpochs;
+        modelBuilder.logFrequency = other.logFrequency;
+        modelBuilder.outputLayerActivation = other.outputLayerActivation;
+        modelBuilder.dataType = other.dataType;
+        modelBuilder.inferenceDataType = other.inferenceDataType;
+        modelBuilder.trainingWorkspaceMode = other.trainingWorkspaceMode;
+        modelBuilder.inferenceWorkspaceMode = other.inferenceWorkspaceMode;
+        modelBuilder.cacheMode = other.cacheMode;
+        modelBuilder.learningRateRangeTest = other.learningRateRangeTest;
+        modelBuilder.oneCycleSchedule = other.oneCycleSchedule;
+        return modelBuilder;
+    }
+}
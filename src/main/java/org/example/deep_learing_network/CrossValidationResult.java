@@ -0,0 +1,44 @@
+package org.example.deep_learing_network;
+
+import java.util.List;
+
+/**
+ * The metrics of every fold of a k-fold cross-validation by the {@link CrossValidator}.
+ *
+ * @param accuracies The accuracy of every fold on its held-out examples.
+ * @param f1Scores   The F1 score of every fold on its held-out examples.
+ */
+public record CrossValidationResult(List<Double> accuracies, List<Double> f1Scores) {
+
+    public double meanAccuracy() {
+        return mean(accuracies);
+    }
+
+    public double accuracyStandardDeviation() {
+        return standardDeviation(accuracies);
+    }
+
+    public double meanF1() {
+        return mean(f1Scores);
+    }
+
+    public double f1StandardDeviation() {
+        return standardDeviation(f1Scores);
+    }
+
+    private static double mean(List<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+    }
+
+    /**
+     * @return The sample standard deviation, 0 for a single value.
+     */
+    private static double standardDeviation(List<Double> values) {
+        if (values.size() < 2) {
+            return 0;
+        }
+        double mean = mean(values);
+        double sumOfSquares = values.stream().mapToDouble(value -> (value - mean) * (value - mean)).sum();
+        return Math.sqrt(sumOfSquares / (values.size() - 1));
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.linalg.api.blas.Blas;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Environment;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates training candidates with k-fold cross-validation, training the folds of a candidate concurrently.
+ *
+ * <p>The already preprocessed examples are shuffled once and stored twice in a row. The held-out examples of fold
+ * {@code i} are the rows {@code [b(i), b(i+1))} and its training examples are the following rows up to
+ * {@code b(i) + n}, which wrap around into the second copy. Both are contiguous row ranges, so every fold is a view of
+ * the same matrix and the features are copied only once, no matter how many folds and candidates are evaluated.</p>
+ */
+public class CrossValidator {
+    private final DataSet data;
+    private final int folds;
+    private int coreBudget = Runtime.getRuntime().availableProcessors();
+    private long seed = 42;
+    private DataSet repeatedData;
+
+    /**
+     * @param data  All examples, already preprocessed by the {@link DataSetBuilder}.
+     * @param folds The number of folds, at least 2.
+     */
+    public CrossValidator(DataSet data, int folds) {
+        if (folds < 2 || folds > data.numExamples()) {
+            throw new IllegalArgumentException("The number of folds must be between 2 and the number of examples");
+        }
+        this.data = data;
+        this.folds = folds;
+    }
+
+    /**
+     * Sets the number of cores shared by the concurrently trained folds. Defaults to the number of cores of the machine.
+     *
+     * @param coreBudget The number of cores.
+     * @return The current instance of {@link CrossValidator} for chaining.
+     */
+    public CrossValidator withCoreBudget(int coreBudget) {
+        this.coreBudget = coreBudget;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the shuffle that assigns the examples to the folds. Defaults to 42.
+     *
+     * @param seed The seed of the shuffle.
+     * @return The current instance of {@link CrossValidator} for chaining.
+     */
+    public CrossValidator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Trains a copy of the untrained model of the candidate on every fold for the number of epochs of its builder and
+     * evaluates it on the held-out examples of the fold. The model of the candidate itself is not trained.
+     *
+     * @param candidate The candidate, its training and testing data are not used.
+     * @return The accuracy and F1 score of every fold.
+     * @throws IllegalStateException if the core budget is not positive.
+     */
+    public CrossValidationResult validate(TrainingCandidate candidate) {
+        if (coreBudget <= 0) {
+            throw new IllegalStateException("The core budget must be positive. Use withCoreBudget() to set it.");
+        }
+        DataSet repeated = getRepeatedData();
+        ModelBuilder modelBuilder = candidate.getModelBuilder();
+        int epochs = modelBuilder.getNumEpochs();
+
+        // Models are cloned on this thread, the folds only train and evaluate
+        List<MultiLayerNetwork> models = new ArrayList<>();
+        for (int fold = 0; fold < folds; fold++) {
+            models.add(candidate.getModel().clone());
+        }
+
+        int parallelFolds = Math.min(folds, coreBudget);
+        // Every fold gets an equal share of the core budget, for the BLAS calls as well as the other native operations
+        int threadsPerFold = Math.max(1, coreBudget / parallelFolds);
+        Environment environment = Nd4j.getEnvironment();
+        Blas blas = Nd4j.factory().blas();
+        int previousMaxThreads = environment.maxThreads();
+        int previousBlasThreads = blas.getMaxThreads();
+        environment.setMaxThreads(threadsPerFold);
+        blas.setMaxThreads(threadsPerFold);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelFolds);
+        try {
+            List<Future<Evaluation>> futures = new ArrayList<>();
+            for (int fold = 0; fold < folds; fold++) {
+                MultiLayerNetwork model = models.get(fold);
+                DataSet trainingView = rows(repeated, boundary(fold + 1), boundary(fold) + data.numExamples());
+                DataSet testingView = rows(repeated, boundary(fold), boundary(fold + 1));
+                futures.add(executor.submit(() -> {
+                    modelBuilder.train(model, trainingView, epochs);
+                    return new Evaluator(model, modelBuilder.prepareDataSet(testingView)).getEvaluationResult();
+                }));
+            }
+
+            List<Double> accuracies = new ArrayList<>();
+            List<Double> f1Scores = new ArrayList<>();
+            for (Future<Evaluation> future : futures) {
+                Evaluation evaluation = future.get();
+                accuracies.add(evaluation.accuracy());
+                f1Scores.add(evaluation.f1());
+            }
+            return new CrossValidationResult(accuracies, f1Scores);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Cross-validation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Training of a fold failed", e.getCause());
+        } finally {
+            executor.shutdown();
+            environment.setMaxThreads(previousMaxThreads);
+            blas.setMaxThreads(previousBlasThreads);
+        }
+    }
+
+    /**
+     * @return The first row of the fold, the folds differ in size by at most one example.
+     */
+    private int boundary(int fold) {
+        return (int) ((long) fold * data.numExamples() / folds);
+    }
+
+    private DataSet getRepeatedData() {
+        if (repeatedData == null) {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < data.numExamples(); i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, new Random(seed));
+
+            int[] rows = new int[2 * order.size()];
+            for (int i = 0; i < order.size(); i++) {
+                rows[i] = order.get(i);
+                rows[i + order.size()] = order.get(i);
+            }
+            repeatedData = new DataSet(Nd4j.pullRows(data.getFeatures(), 1, rows), Nd4j.pullRows(data.getLabels(), 1, rows));
+        }
+        return repeatedData;
+    }
+
+    private static DataSet rows(DataSet data, int from, int to) {
+        INDArray features = data.getFeatures().get(NDArrayIndex.interval(from, to), NDArrayIndex.all());
+        INDArray labels = data.getLabels().get(NDArrayIndex.interval(from, to), NDArrayIndex.all());
+        return new DataSet(features, labels);
+    }
+}
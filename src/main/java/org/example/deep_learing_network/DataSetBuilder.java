@@ -3,6 +3,7 @@ package org.example.deep_learing_network;
 import org.example.ImageCropper;
 import org.example.ImageExtractor;
 import org.example.PixelValues;
+import org.example.image_loader.CroppedImageCache;
 import org.example.image_loader.LoadableImage;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
@@ -10,7 +11,13 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.opencv.core.Mat;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A builder class for creating a {@link DataSet} tailored for machine learning tasks,
@@ -26,6 +33,9 @@ public class DataSetBuilder {
     private int targetPixelCols;
     private int numClasses;
     private boolean includeAlphaChannel = true;
+    private CroppedImageCache croppedImageCache;
+    private double cropProxyScaleFactor = 1.0;
+    private int workers = 1;
 
     /**
      * Sets the list of images to be processed for the dataset.
@@ -74,6 +84,43 @@ public class DataSetBuilder {
         return this;
     }
 
+    /**
+     * Shares the cropped images between builds, so images that are part of several builds are decoded and cropped
+     * only once. Without a cache, every build decodes and crops all of its images.
+     *
+     * @param croppedImageCache The cache of cropped images, may be shared between several builders and threads.
+     * @return The current instance of {@link DataSetBuilder} for chaining.
+     */
+    public DataSetBuilder withCroppedImageCache(CroppedImageCache croppedImageCache) {
+        this.croppedImageCache = croppedImageCache;
+        return this;
+    }
+
+    /**
+     * Searches the contour of the sign on an image that is smaller by the given factor, see
+     * {@link ImageCropper#withProxyScaleFactor(double)}. The sign is still cropped at full resolution.
+     * Defaults to 1, which searches at full resolution.
+     *
+     * @param cropProxyScaleFactor The factor by which the image searched for the contour is smaller, at least 1.
+     * @return The current instance of {@link DataSetBuilder} for chaining.
+     */
+    public DataSetBuilder withCropProxyScaleFactor(double cropProxyScaleFactor) {
+        this.cropProxyScaleFactor = cropProxyScaleFactor;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that crop and scale the images in parallel. Defaults to 1. OpenCV may use its own
+     * threads within every worker, see {@code ThreadCalibration} for a combination that does not oversubscribe the cores.
+     *
+     * @param workers The number of worker threads.
+     * @return The current instance of {@link DataSetBuilder} for chaining.
+     */
+    public DataSetBuilder withWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
     /**
      * Builds the {@link DataSet} based on the configuration provided to the builder.
      *
@@ -81,58 +128,202 @@ public class DataSetBuilder {
      * @throws IllegalStateException if required fields (images, dimensions, or classes) are not set.
      */
     public DataSet build() {
+        validateDimensions();
+        Resolution resolution = new Resolution(targetPixelRows, targetPixelCols);
+        return buildMultiResolution(List.of(resolution)).get(resolution);
+    }
+
+    /**
+     * Builds one {@link DataSet} per target resolution. Every image is decoded and cropped only once, and the cropped
+     * sign is scaled to each resolution, so a resolution sweep does not repeat the preprocessing.
+     * The datasets contain the same examples in the same order.
+     *
+     * @param resolutions The target resolutions.
+     * @return The datasets, keyed by their resolution, in the order of the given resolutions.
+     * @throws IllegalStateException if the images, the resolutions or the number of classes are not set.
+     */
+    public Map<Resolution, DataSet> buildMultiResolution(List<Resolution> resolutions) {
         if (images.isEmpty()) {
             throw new IllegalStateException("Images list cannot be empty. Use withImages() to provide images.");
         }
-        if (targetPixelRows <= 0 || targetPixelCols <= 0) {
-            throw new IllegalStateException("Target dimensions must be positive. Use withTargetDimensions() to set them.");
+        if (resolutions.isEmpty() || resolutions.stream().anyMatch(resolution -> resolution.rows() <= 0 || resolution.cols() <= 0)) {
+            throw new IllegalStateException("At least one resolution is required and all resolutions must be positive.");
         }
         if (numClasses <= 0) {
             throw new IllegalStateException("Number of classes must be positive. Use withNumClasses() to set it.");
         }
 
         int numExamples = images.size();
-        int channels = includeAlphaChannel ? 4 : 3; // 3 for RGB, 4 for RGBA
-        int inputSize = targetPixelRows * targetPixelCols * channels;
 
-        // Prepare input and output arrays
-        float[][] input = new float[numExamples][inputSize];
+        // Prepare input arrays per resolution and the output array shared by all resolutions
+        List<float[][]> inputs = new ArrayList<>();
+        for (Resolution resolution : resolutions) {
+            inputs.add(new float[numExamples][getInputSize(resolution)]);
+        }
         float[][] output = new float[numExamples][numClasses];
 
-        ImageExtractor extractor = new ImageExtractor(targetPixelRows, targetPixelCols);
-
-        for (int i = 0; i < numExamples; i++) {
-            System.out.println("Processing image " + i + " of " + numExamples + " to build the dataset");
-            List<PixelValues> feature;
-            try {
-                ImageCropper cropper = new ImageCropper();
-                Mat croppedImage = cropper.cropSign(images.get(i).loadMaterial());
-                feature = extractor.scaleAndExtractFeaturesFromImage(croppedImage);
-            } catch (IllegalStateException e) {
-                System.out.println("Could not extract features from image, likely due to cropping error " + images.get(i).path());
-                continue;
+        if (workers <= 1) {
+            for (int i = 0; i < numExamples; i++) {
+                processImage(i, resolutions, inputs, output);
             }
-
-            // Flatten the features
-            float[] flatFeature = new float[inputSize];
-            for (int j = 0; j < feature.size(); j++) {
-                PixelValues pixel = feature.get(j);
-                flatFeature[j * channels] = (float) pixel.getNormalizedRed();
-                flatFeature[j * channels + 1] = (float) pixel.getNormalizedGreen();
-                flatFeature[j * channels + 2] = (float) pixel.getNormalizedBlue();
-                if (includeAlphaChannel) {
-                    flatFeature[j * channels + 3] = (float) pixel.getNormalizedAlpha();
+        } else {
+            // Every image only writes its own rows, so the images can be processed in parallel
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < numExamples; i++) {
+                    int index = i;
+                    futures.add(executor.submit(() -> processImage(index, resolutions, inputs, output)));
                 }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Building the dataset was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Processing an image failed", e.getCause());
+            } finally {
+                executor.shutdown();
             }
-            input[i] = flatFeature;
-
-            // One-hot encode the label
-            output[i][images.get(i).classification().ordinal()] = 1.0f;
         }
 
-        INDArray inputNDArray = Nd4j.create(input);
         INDArray outputNDArray = Nd4j.create(output);
+        Map<Resolution, DataSet> dataSets = new LinkedHashMap<>();
+        for (int r = 0; r < resolutions.size(); r++) {
+            dataSets.put(resolutions.get(r), new DataSet(Nd4j.create(inputs.get(r)), outputNDArray.dup()));
+        }
+        return dataSets;
+    }
 
-        return new DataSet(inputNDArray, outputNDArray);
+    private void processImage(int i, List<Resolution> resolutions, List<float[][]> inputs, float[][] output) {
+        System.out.println("Processing image " + i + " of " + images.size() + " to build the dataset");
+        Mat croppedImage;
+        try {
+            croppedImage = cropSign(images.get(i));
+        } catch (IllegalStateException e) {
+            System.out.println("Could not extract features from image, likely due to cropping error " + images.get(i).path());
+            return;
+        }
+        for (int r = 0; r < resolutions.size(); r++) {
+            inputs.get(r)[i] = toFeatureVector(croppedImage, resolutions.get(r));
+        }
+        croppedImage.release();
+
+        // One-hot encode the label
+        output[i][images.get(i).classification().ordinal()] = 1.0f;
+    }
+
+    /**
+     * Loads a single image, crops the sign from it and flattens it to a feature vector, in the same way as
+     * {@link #build()} does for every image of the dataset.
+     *
+     * @param image The image to process.
+     * @return The flattened, normalized pixel values of the cropped and scaled sign.
+     * @throws IllegalStateException if the target dimensions are not set or the sign cannot be cropped from the image.
+     */
+    public float[] buildFeatureVector(LoadableImage image) {
+        Mat croppedImage = cropSign(image);
+        try {
+            return toFeatureVector(croppedImage);
+        } finally {
+            croppedImage.release();
+        }
+    }
+
+    private Mat cropSign(LoadableImage image) {
+        ImageCropper cropper = new ImageCropper().withProxyScaleFactor(cropProxyScaleFactor);
+        if (croppedImageCache == null) {
+            return loadAndCrop(image, cropper);
+        }
+        return croppedImageCache.getOrCrop(image, "proxy " + cropProxyScaleFactor, uncached -> loadAndCrop(uncached, cropper));
+    }
+
+    /**
+     * Decodes and crops an image. The decoded image is released unless the cropper returned it because it found no
+     * contour, so only the much smaller crop stays in native memory.
+     */
+    private static Mat loadAndCrop(LoadableImage image, ImageCropper cropper) {
+        Mat decoded = image.loadMaterial();
+        Mat cropped;
+        try {
+            cropped = cropper.cropSign(decoded);
+        } catch (RuntimeException e) {
+            decoded.release();
+            throw e;
+        }
+        if (cropped != decoded) {
+            decoded.release();
+        }
+        return cropped;
+    }
+
+    /**
+     * Scales an already cropped sign to the target dimensions and flattens it to a feature vector.
+     * The channels of each pixel are stored next to each other (RGBA or RGB).
+     *
+     * @param croppedImage The cropped sign in RGBA format.
+     * @return The flattened, normalized pixel values of the scaled sign.
+     * @throws IllegalStateException if the target dimensions are not set.
+     */
+    public float[] toFeatureVector(Mat croppedImage) {
+        validateDimensions();
+        return toFeatureVector(croppedImage, new Resolution(targetPixelRows, targetPixelCols));
+    }
+
+    private float[] toFeatureVector(Mat croppedImage, Resolution resolution) {
+        int channels = getChannels();
+        List<PixelValues> feature = new ImageExtractor(resolution.rows(), resolution.cols()).scaleAndExtractFeaturesFromImage(croppedImage);
+
+        // Flatten the features
+        float[] flatFeature = new float[getInputSize(resolution)];
+        for (int j = 0; j < feature.size(); j++) {
+            PixelValues pixel = feature.get(j);
+            flatFeature[j * channels] = (float) pixel.getNormalizedRed();
+            flatFeature[j * channels + 1] = (float) pixel.getNormalizedGreen();
+            flatFeature[j * channels + 2] = (float) pixel.getNormalizedBlue();
+            if (includeAlphaChannel) {
+                flatFeature[j * channels + 3] = (float) pixel.getNormalizedAlpha();
+            }
+        }
+        return flatFeature;
+    }
+
+    /**
+     * Returns the size of a single feature vector for the configured dimensions and channels.
+     *
+     * @return The number of input features per image.
+     */
+    public int getInputSize() {
+        return getInputSize(new Resolution(targetPixelRows, targetPixelCols));
+    }
+
+    /**
+     * Returns the size of a single feature vector at the given resolution for the configured channels.
+     *
+     * @param resolution The target resolution.
+     * @return The number of input features per image.
+     */
+    public int getInputSize(Resolution resolution) {
+        return resolution.rows() * resolution.cols() * getChannels();
+    }
+
+    /**
+     * Returns the factor by which the image searched for the sign contour is smaller than the original image.
+     *
+     * @return The crop proxy scale factor, 1 if the contour is searched at full resolution.
+     */
+    public double getCropProxyScaleFactor() {
+        return cropProxyScaleFactor;
+    }
+
+    private int getChannels() {
+        return includeAlphaChannel ? 4 : 3; // 3 for RGB, 4 for RGBA
+    }
+
+    private void validateDimensions() {
+        if (targetPixelRows <= 0 || targetPixelCols <= 0) {
+            throw new IllegalStateException("Target dimensions must be positive. Use withTargetDimensions() to set them.");
+        }
     }
 }
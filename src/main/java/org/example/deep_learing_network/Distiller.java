@@ -0,0 +1,117 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+/**
+ * Trains a small student model on the predictions of a large, trained teacher model (knowledge distillation).
+ *
+ * <p>The class probabilities of the teacher are softened with a temperature {@code T}: {@code p^(1/T)} renormalized,
+ * which is the same as a softmax over the teacher logits divided by {@code T}. The softened probabilities show which
+ * classes the teacher considers similar, e.g. the two triangle signs. The student is trained on a mix of the soft
+ * targets and the true labels, with the same loss function as a normally trained model.</p>
+ */
+public class Distiller {
+    private final MultiLayerNetwork teacher;
+    private final ModelBuilder studentBuilder;
+    private double temperature = 4.0;
+    private double softTargetWeight = 0.7;
+
+    /**
+     * @param teacher        The trained teacher model.
+     * @param studentBuilder The fully configured builder of the student model.
+     */
+    public Distiller(MultiLayerNetwork teacher, ModelBuilder studentBuilder) {
+        this.teacher = teacher;
+        this.studentBuilder = studentBuilder;
+    }
+
+    /**
+     * Sets the temperature used to soften the probabilities of the teacher. Defaults to 4.
+     *
+     * @param temperature The temperature, 1 keeps the probabilities of the teacher as they are.
+     * @return The current instance of {@link Distiller} for chaining.
+     */
+    public Distiller withTemperature(double temperature) {
+        this.temperature = temperature;
+        return this;
+    }
+
+    /**
+     * Sets the weight of the soft targets in the training targets, the true labels get the remaining weight.
+     * Defaults to 0.7.
+     *
+     * @param softTargetWeight The weight of the soft targets between 0 and 1.
+     * @return The current instance of {@link Distiller} for chaining.
+     */
+    public Distiller withSoftTargetWeight(double softTargetWeight) {
+        this.softTargetWeight = softTargetWeight;
+        return this;
+    }
+
+    /**
+     * Trains the student on the soft targets of the teacher mixed with the true labels.
+     *
+     * @param trainingData The dataset used to train the teacher.
+     * @return The trained student.
+     * @throws IllegalStateException if the temperature or the soft target weight is out of range.
+     */
+    public MultiLayerNetwork distill(DataSet trainingData) {
+        if (temperature <= 0) {
+            throw new IllegalStateException("Temperature must be positive. Use withTemperature() to set it.");
+        }
+        if (softTargetWeight < 0 || softTargetWeight > 1) {
+            throw new IllegalStateException("Soft target weight must be between 0 and 1. Use withSoftTargetWeight() to set it.");
+        }
+
+        INDArray features = trainingData.getFeatures().castTo(teacher.params().dataType());
+        INDArray softTargets = soften(teacher.output(features, false));
+        INDArray hardTargets = trainingData.getLabels().castTo(softTargets.dataType());
+        INDArray targets = softTargets.muli(softTargetWeight).addi(hardTargets.mul(1 - softTargetWeight));
+
+        return studentBuilder.buildAndTrain(new DataSet(trainingData.getFeatures(), targets.castTo(trainingData.getLabels().dataType())));
+    }
+
+    /**
+     * Prints the accuracy and the average latency of a single prediction of the teacher and the student.
+     *
+     * @param student     The trained student.
+     * @param testingData The dataset used for testing.
+     */
+    public void printComparison(MultiLayerNetwork student, DataSet testingData) {
+        System.out.println("---------------------------------Knowledge Distillation---------------------------------");
+        System.out.println(String.format("%-8s %12s %10s %20s", "Model", "Parameters", "Accuracy", "Latency per image (µs)"));
+        printRow("Teacher", teacher, testingData);
+        printRow("Student", student, testingData);
+    }
+
+    private void printRow(String name, MultiLayerNetwork model, DataSet testingData) {
+        Evaluation evaluation = new Evaluator(model, testingData).getEvaluationResult();
+        System.out.println(String.format("%-8s %12d %10.4f %20.1f", name, model.numParams(), evaluation.accuracy(),
+                measureLatencyMicros(model, testingData)));
+    }
+
+    /**
+     * Measures predictions of one image at a time, as on an edge device that classifies the frames of a camera.
+     */
+    private static double measureLatencyMicros(MultiLayerNetwork model, DataSet testingData) {
+        INDArray features = testingData.getFeatures().castTo(model.params().dataType());
+        int examples = (int) features.rows();
+        for (int i = 0; i < examples; i++) {
+            model.output(features.getRow(i, true), false); // warm up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < examples; i++) {
+            model.output(features.getRow(i, true), false);
+        }
+        return (System.nanoTime() - start) / 1000.0 / Math.max(examples, 1);
+    }
+
+    private INDArray soften(INDArray probabilities) {
+        INDArray softened = Transforms.pow(probabilities, 1.0 / temperature, true);
+        return softened.diviColumnVector(softened.sum(true, 1));
+    }
+}
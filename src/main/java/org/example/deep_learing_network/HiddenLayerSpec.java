@@ -0,0 +1,25 @@
+package org.example.deep_learing_network;
+
+import kotlin.Pair;
+import org.nd4j.linalg.activations.Activation;
+
+import java.util.List;
+
+/**
+ * A serializable description of a single hidden layer, used where layer configurations are read from JSON.
+ *
+ * @param size       The number of neurons of the layer.
+ * @param activation The activation function of the layer.
+ */
+public record HiddenLayerSpec(int size, Activation activation) {
+
+    /**
+     * Converts a list of layer descriptions to the hidden layer configuration expected by the {@link ModelBuilder}.
+     *
+     * @param specs The layer descriptions, from the first to the last hidden layer.
+     * @return The hidden layer configuration.
+     */
+    public static List<Pair<Integer, Activation>> toHiddenLayerConfig(List<HiddenLayerSpec> specs) {
+        return specs.stream().map(spec -> new Pair<>(spec.size(), spec.activation())).toList();
+    }
+}
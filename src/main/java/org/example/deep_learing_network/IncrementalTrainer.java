@@ -0,0 +1,179 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.example.image_loader.LoadableImage;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Keeps a saved model up to date with a growing image corpus.
+ *
+ * <p>Next to the model file, a manifest ({@code <model file>.images}) lists the paths of all images the model was
+ * trained on. When new images are added to the corpus, the saved model is restored together with its Adam updater
+ * state and fine-tuned for a short budget on the new images, mixed with a random replay sample of the images it was
+ * already trained on, so it does not forget them. The cost of an update therefore depends on the number of new images
+ * instead of the size of the corpus.</p>
+ */
+public class IncrementalTrainer {
+    private static final String MANIFEST_SUFFIX = ".images";
+
+    private final ModelBuilder modelBuilder;
+    private final DataSetBuilder dataSetBuilder;
+    private int fineTuningEpochs = 20;
+    private double replayRatio = 1.0;
+    private long seed = 1;
+
+    /**
+     * @param modelBuilder   The builder of the model, used to train a new model if there is no saved one yet.
+     * @param dataSetBuilder The fully configured builder used to turn images into datasets.
+     */
+    public IncrementalTrainer(ModelBuilder modelBuilder, DataSetBuilder dataSetBuilder) {
+        this.modelBuilder = modelBuilder;
+        this.dataSetBuilder = dataSetBuilder;
+    }
+
+    /**
+     * Sets the number of epochs the saved model is fine-tuned for. Defaults to 20.
+     *
+     * @param fineTuningEpochs The number of fine-tuning epochs.
+     * @return The current instance of {@link IncrementalTrainer} for chaining.
+     */
+    public IncrementalTrainer withFineTuningEpochs(int fineTuningEpochs) {
+        this.fineTuningEpochs = fineTuningEpochs;
+        return this;
+    }
+
+    /**
+     * Sets the number of already trained images replayed per new image. Defaults to 1.0.
+     *
+     * @param replayRatio The ratio of replayed images to new images.
+     * @return The current instance of {@link IncrementalTrainer} for chaining.
+     */
+    public IncrementalTrainer withReplayRatio(double replayRatio) {
+        this.replayRatio = replayRatio;
+        return this;
+    }
+
+    /**
+     * Sets the seed used to draw the replay sample. Defaults to 1.
+     *
+     * @param seed The seed of the replay sample.
+     * @return The current instance of {@link IncrementalTrainer} for chaining.
+     */
+    public IncrementalTrainer withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Brings the saved model up to date with the corpus. If there is no saved model yet, a model is trained from
+     * scratch on the whole corpus. Otherwise the saved model is fine-tuned on the images that are not listed in its
+     * manifest. The model and its manifest are saved afterwards.
+     *
+     * @param modelFile The file of the saved model.
+     * @param corpus    All images of the corpus.
+     * @return The updated model.
+     * @throws IllegalStateException if the model exists but has no manifest.
+     */
+    public MultiLayerNetwork update(File modelFile, List<LoadableImage> corpus) {
+        if (!modelFile.exists()) {
+            System.out.println("No saved model at " + modelFile + ", training a new model on " + corpus.size() + " images");
+            MultiLayerNetwork model = modelBuilder.build();
+            modelBuilder.train(model, dataSetBuilder.withImages(corpus).build(), modelBuilder.getNumEpochs());
+            save(model, modelFile, corpus);
+            return model;
+        }
+
+        Set<String> trainedPaths = readManifest(modelFile);
+        List<LoadableImage> newImages = new ArrayList<>();
+        List<LoadableImage> trainedImages = new ArrayList<>();
+        for (LoadableImage image : corpus) {
+            (trainedPaths.contains(image.path()) ? trainedImages : newImages).add(image);
+        }
+
+        MultiLayerNetwork model = restore(modelFile);
+        if (newImages.isEmpty()) {
+            System.out.println("The model at " + modelFile + " is up to date with all " + corpus.size() + " images");
+            return model;
+        }
+
+        List<LoadableImage> replay = new ArrayList<>(trainedImages);
+        Collections.shuffle(replay, new Random(seed));
+        replay = replay.subList(0, (int) Math.min(replay.size(), Math.ceil(newImages.size() * replayRatio)));
+
+        List<LoadableImage> fineTuningImages = new ArrayList<>(newImages);
+        fineTuningImages.addAll(replay);
+        System.out.println("Fine-tuning on " + newImages.size() + " new and " + replay.size() + " replayed images for "
+                + fineTuningEpochs + " epochs");
+        DataSet fineTuningData = dataSetBuilder.withImages(fineTuningImages).build();
+        fineTuningData.shuffle(seed);
+        modelBuilder.train(model, fineTuningData, fineTuningEpochs);
+
+        List<LoadableImage> allTrainedImages = new ArrayList<>(trainedImages);
+        allTrainedImages.addAll(newImages);
+        save(model, modelFile, allTrainedImages);
+        return model;
+    }
+
+    /**
+     * Writes the manifest of a model that was trained elsewhere, so it can be updated incrementally.
+     *
+     * @param modelFile     The file of the saved model.
+     * @param trainedImages The images the model was trained on.
+     */
+    public static void writeManifest(File modelFile, List<LoadableImage> trainedImages) {
+        List<String> paths = trainedImages.stream().map(LoadableImage::path).toList();
+        try {
+            Files.write(manifestPath(modelFile), paths, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the manifest of " + modelFile, e);
+        }
+    }
+
+    private static Set<String> readManifest(File modelFile) {
+        Path manifest = manifestPath(modelFile);
+        if (!Files.exists(manifest)) {
+            throw new IllegalStateException("There is no manifest " + manifest + " for the saved model. "
+                    + "Use writeManifest() to record the images the model was trained on.");
+        }
+        try {
+            return new LinkedHashSet<>(Files.readAllLines(manifest, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading " + manifest, e);
+        }
+    }
+
+    private static Path manifestPath(File modelFile) {
+        return Path.of(modelFile.getPath() + MANIFEST_SUFFIX);
+    }
+
+    private static MultiLayerNetwork restore(File modelFile) {
+        try {
+            // Restoring the updater keeps the Adam moment estimates, so fine-tuning continues instead of restarting
+            return ModelSerializer.restoreMultiLayerNetwork(modelFile, true);
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading the model from " + modelFile, e);
+        }
+    }
+
+    private static void save(MultiLayerNetwork model, File modelFile, List<LoadableImage> trainedImages) {
+        try {
+            ModelSerializer.writeModel(model, modelFile, true);
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving the model to " + modelFile, e);
+        }
+        writeManifest(modelFile, trainedImages);
+    }
+}
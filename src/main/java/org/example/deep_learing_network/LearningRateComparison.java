@@ -0,0 +1,105 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the number of epochs a candidate needs to converge with its configured learning rate and with the learning
+ * rate found by a {@link LearningRateRangeTest}.
+ *
+ * <p>The candidate is first trained for all epochs of its builder with the configured learning rate, and its final
+ * accuracy is the target. The baseline needs the epochs of its first evaluation that reaches the target. Then a second
+ * copy is trained with the found learning rate, optionally with a {@link OneCycleSchedule} over the same number of
+ * epochs, until it reaches the target. Both runs are evaluated every {@code evaluationInterval} epochs, so the reported
+ * epochs are rounded up to that interval.</p>
+ */
+public class LearningRateComparison {
+    private final int evaluationInterval;
+    private final boolean oneCycleSchedule;
+
+    /**
+     * @param evaluationInterval The number of epochs between two evaluations.
+     * @param oneCycleSchedule   If true, the second run uses a one-cycle schedule peaking at the found learning rate.
+     */
+    public LearningRateComparison(int evaluationInterval, boolean oneCycleSchedule) {
+        if (evaluationInterval <= 0) {
+            throw new IllegalArgumentException("The evaluation interval must be positive");
+        }
+        this.evaluationInterval = evaluationInterval;
+        this.oneCycleSchedule = oneCycleSchedule;
+    }
+
+    /**
+     * Trains two copies of the untrained model of the candidate. The model of the candidate itself is not trained.
+     *
+     * @param candidate The candidate to compare.
+     * @return The epochs to the target accuracy of both runs.
+     */
+    public ConvergenceResult compare(TrainingCandidate candidate) {
+        ModelBuilder modelBuilder = candidate.getModelBuilder();
+        DataSet trainingData = candidate.getTrainingData();
+        DataSet testingData = modelBuilder.prepareDataSet(candidate.getTestingData());
+        int maxEpochs = modelBuilder.getNumEpochs();
+
+        MultiLayerNetwork baseline = candidate.getModel().clone();
+        List<Integer> evaluatedEpochs = new ArrayList<>();
+        List<Double> accuracies = new ArrayList<>();
+        int epochsTrained = 0;
+        while (epochsTrained < maxEpochs) {
+            int epochs = Math.min(evaluationInterval, maxEpochs - epochsTrained);
+            modelBuilder.train(baseline, trainingData, epochs);
+            epochsTrained += epochs;
+            evaluatedEpochs.add(epochsTrained);
+            accuracies.add(new Evaluator(baseline, testingData).getEvaluationResult().accuracy());
+        }
+        double targetAccuracy = accuracies.get(accuracies.size() - 1);
+        int baselineEpochsToTarget = maxEpochs;
+        for (int i = 0; i < accuracies.size(); i++) {
+            if (accuracies.get(i) >= targetAccuracy) {
+                baselineEpochsToTarget = evaluatedEpochs.get(i);
+                break;
+            }
+        }
+
+        MultiLayerNetwork tuned = candidate.getModel().clone();
+        double learningRate = modelBuilder.runLearningRateRangeTest(tuned, trainingData).suggestedLearningRate();
+        if (oneCycleSchedule) {
+            tuned.setLearningRate(new OneCycleSchedule(learningRate, maxEpochs));
+        } else {
+            tuned.setLearningRate(learningRate);
+        }
+        int tunedEpochsToTarget = firstEpochReaching(tuned, modelBuilder, trainingData, testingData, targetAccuracy, maxEpochs);
+
+        return new ConvergenceResult(learningRate, targetAccuracy, baselineEpochsToTarget, tunedEpochsToTarget);
+    }
+
+    /**
+     * @return The first evaluated epoch with at least the target accuracy, or -1 if it is not reached.
+     */
+    private int firstEpochReaching(MultiLayerNetwork model, ModelBuilder modelBuilder, DataSet trainingData,
+                                   DataSet testingData, double targetAccuracy, int maxEpochs) {
+        int epochsTrained = 0;
+        while (epochsTrained < maxEpochs) {
+            int epochs = Math.min(evaluationInterval, maxEpochs - epochsTrained);
+            modelBuilder.train(model, trainingData, epochs);
+            epochsTrained += epochs;
+            if (new Evaluator(model, testingData).getEvaluationResult().accuracy() >= targetAccuracy) {
+                return epochsTrained;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param foundLearningRate      The learning rate suggested by the range test.
+     * @param targetAccuracy         The accuracy of the configured learning rate after all epochs.
+     * @param baselineEpochsToTarget The epochs the configured learning rate needs to reach the target accuracy.
+     * @param tunedEpochsToTarget    The epochs the found learning rate needs to reach the target accuracy, -1 if never.
+     */
+    public record ConvergenceResult(double foundLearningRate, double targetAccuracy, int baselineEpochsToTarget,
+                                    int tunedEpochsToTarget) {
+    }
+}
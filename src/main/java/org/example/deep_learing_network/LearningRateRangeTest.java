@@ -0,0 +1,14 @@
+package org.example.deep_learing_network;
+
+import java.util.List;
+
+/**
+ * The loss curve of a learning rate range test, see {@link ModelBuilder#runLearningRateRangeTest}.
+ *
+ * @param learningRates         The learning rate of every step, growing exponentially.
+ * @param losses                The smoothed training loss after every step.
+ * @param suggestedLearningRate The learning rate picked from the curve: a tenth of the learning rate with the lowest
+ *                              loss, where the loss still falls quickly but training is stable.
+ */
+public record LearningRateRangeTest(List<Double> learningRates, List<Double> losses, double suggestedLearningRate) {
+}
@@ -0,0 +1,78 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.Arrays;
+
+/**
+ * Prunes the weights of a dense layer by magnitude.
+ *
+ * <p>The weights with the smallest absolute values are set to zero until the target sparsity is reached. Most of them
+ * belong to the pixels outside the mask of the {@code ImageCropper}, which are transparent in every image. The pruned
+ * model can be fine-tuned afterwards, the pruned weights are kept at zero after every iteration.</p>
+ */
+public class MagnitudePruner {
+    private final ModelBuilder modelBuilder;
+
+    /**
+     * @param modelBuilder The builder the model was built with, used to prepare the data for fine-tuning.
+     */
+    public MagnitudePruner(ModelBuilder modelBuilder) {
+        this.modelBuilder = modelBuilder;
+    }
+
+    /**
+     * Sets the weights of a layer with the lowest magnitude to zero.
+     *
+     * @param model      The trained model, pruned in place.
+     * @param layerIndex The index of the dense layer to prune, 0 for the first hidden layer.
+     * @param sparsity   The fraction of weights to prune, between 0 and 1.
+     * @return The mask with 1 for every kept weight and 0 for every pruned weight, in the shape of the weights.
+     * @throws IllegalArgumentException if the sparsity is out of range or the layer has no weights.
+     */
+    public INDArray prune(MultiLayerNetwork model, int layerIndex, double sparsity) {
+        if (sparsity < 0 || sparsity >= 1) {
+            throw new IllegalArgumentException("The sparsity must be at least 0 and less than 1");
+        }
+        INDArray weights = model.getLayer(layerIndex).getParam("W");
+        if (weights == null) {
+            throw new IllegalArgumentException("Layer " + layerIndex + " has no weights to prune");
+        }
+
+        float[] magnitudes = Transforms.abs(weights, true).ravel().toFloatVector();
+        Arrays.sort(magnitudes);
+        int pruned = (int) Math.round(magnitudes.length * sparsity);
+        float threshold = pruned == 0 ? -1f : magnitudes[pruned - 1];
+
+        INDArray mask = Transforms.abs(weights, true).gt(threshold).castTo(weights.dataType());
+        weights.muli(mask);
+        // Weights tied at the threshold are pruned as well, so the actual count may exceed the target
+        long actuallyPruned = magnitudes.length - mask.sumNumber().longValue();
+        System.out.println("Pruned " + actuallyPruned + " of " + magnitudes.length + " weights of layer " + layerIndex
+                + " (sparsity " + String.format("%.3f", actuallyPruned / (double) magnitudes.length) + ", target " + sparsity
+                + ") with a magnitude up to " + threshold);
+        return mask;
+    }
+
+    /**
+     * Fine-tunes a pruned model, keeping the pruned weights at zero.
+     *
+     * @param model        The pruned model.
+     * @param layerIndex   The index of the pruned layer.
+     * @param mask         The mask returned by {@link #prune(MultiLayerNetwork, int, double)}.
+     * @param trainingData The dataset used to train the model.
+     * @param epochs       The number of fine-tuning epochs.
+     */
+    public void fineTune(MultiLayerNetwork model, int layerIndex, INDArray mask, DataSet trainingData, int epochs) {
+        DataSet preparedData = modelBuilder.prepareTrainingData(model, trainingData);
+        INDArray weights = model.getLayer(layerIndex).getParam("W");
+        for (int i = 0; i < epochs; i++) {
+            model.fit(preparedData);
+            // The updater moves pruned weights away from zero again, so the mask is reapplied after every step
+            weights.muli(mask);
+        }
+    }
+}
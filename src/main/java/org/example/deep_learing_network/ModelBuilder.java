@@ -1,14 +1,18 @@
 package org.example.deep_learing_network;
 
 import kotlin.Pair;
+import org.deeplearning4j.nn.conf.CacheMode;
 import org.deeplearning4j.nn.conf.GradientNormalization;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
 import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.optimize.listeners.ScoreIterationListener;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
@@ -23,6 +27,10 @@ import java.util.List;
  * optimizer, training parameters, and other essential features.</p>
  */
 public class ModelBuilder {
+    private static final double RANGE_TEST_MIN_LEARNING_RATE = 1e-7;
+    private static final double RANGE_TEST_MAX_LEARNING_RATE = 1;
+    private static final int RANGE_TEST_STEPS = 100;
+    private static final double RANGE_TEST_SMOOTHING = 0.9;
 
     protected int inputSize;
     protected int outputSize;
@@ -32,6 +40,15 @@ public class ModelBuilder {
     protected int logFrequency = 10;
     protected Activation outputLayerActivation = Activation.SOFTMAX;
     protected long seed = 1; // Default seed
+    protected DataType dataType = DataType.FLOAT;
+    protected DataType inferenceDataType = null; // null: same as the training data type
+    protected WorkspaceMode trainingWorkspaceMode = WorkspaceMode.ENABLED;
+    protected WorkspaceMode inferenceWorkspaceMode = WorkspaceMode.ENABLED;
+    protected CacheMode cacheMode = CacheMode.NONE;
+    protected boolean learningRateRangeTest = false;
+    protected boolean oneCycleSchedule = false;
+    protected WarmStartRegistry warmStartRegistry = null;
+    protected double warmStartEpochFraction = 1.0;
 
 
     /**
@@ -122,6 +139,102 @@ public class ModelBuilder {
         return this;
     }
 
+    /**
+     * Sets the data type of the parameters and activations during training. Defaults to {@link DataType#FLOAT}.
+     * {@link DataType#HALF} and {@link DataType#BFLOAT16} are supported by the CPU backend, but are emulated on
+     * most CPUs and therefore mainly save memory.
+     *
+     * @param dataType The floating point data type used for training.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withDataType(DataType dataType) {
+        this.dataType = dataType;
+        return this;
+    }
+
+    /**
+     * Sets the data type the trained model is converted to for inference. Defaults to the training data type.
+     *
+     * @param inferenceDataType The floating point data type used for inference.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withInferenceDataType(DataType inferenceDataType) {
+        this.inferenceDataType = inferenceDataType;
+        return this;
+    }
+
+    /**
+     * Sets the workspace mode used during training. Defaults to {@link WorkspaceMode#ENABLED}.
+     *
+     * @param trainingWorkspaceMode The workspace mode used during training.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withTrainingWorkspaceMode(WorkspaceMode trainingWorkspaceMode) {
+        this.trainingWorkspaceMode = trainingWorkspaceMode;
+        return this;
+    }
+
+    /**
+     * Sets the workspace mode used during inference. Defaults to {@link WorkspaceMode#ENABLED}.
+     *
+     * @param inferenceWorkspaceMode The workspace mode used during inference.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withInferenceWorkspaceMode(WorkspaceMode inferenceWorkspaceMode) {
+        this.inferenceWorkspaceMode = inferenceWorkspaceMode;
+        return this;
+    }
+
+    /**
+     * Sets the cache mode for the activations of the layers. Defaults to {@link CacheMode#NONE}.
+     *
+     * @param cacheMode The cache mode of the network.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withCacheMode(CacheMode cacheMode) {
+        this.cacheMode = cacheMode;
+        return this;
+    }
+
+    /**
+     * Configures whether {@link #buildAndTrain(DataSet)} picks the learning rate with a learning rate range test
+     * instead of using the configured learning rate. Defaults to false.
+     *
+     * @param learningRateRangeTest If true, the learning rate is found by {@link #runLearningRateRangeTest}.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withLearningRateRangeTest(boolean learningRateRangeTest) {
+        this.learningRateRangeTest = learningRateRangeTest;
+        return this;
+    }
+
+    /**
+     * Configures whether {@link #buildAndTrain(DataSet)} trains with a {@link OneCycleSchedule} over all epochs, which
+     * peaks at the configured or found learning rate. Defaults to false.
+     *
+     * @param oneCycleSchedule If true, the learning rate follows a one-cycle schedule.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withOneCycleSchedule(boolean oneCycleSchedule) {
+        this.oneCycleSchedule = oneCycleSchedule;
+        return this;
+    }
+
+    /**
+     * Configures {@link #buildAndTrain(DataSet)} to start from the trained parameters of the closest compatible
+     * configuration in the registry, if there is one, and to train it for a fraction of the epochs. Every trained model
+     * is added to the registry. Defaults to no registry, which always starts from random weights.
+     *
+     * @param warmStartRegistry      The registry shared by the configurations of a sweep, or {@code null}.
+     * @param warmStartEpochFraction The fraction of the epochs a warm-started model is trained, e.g. 0.3.
+     * @return The current instance of {@link ModelBuilder} for chaining.
+     */
+    public ModelBuilder withWarmStart(WarmStartRegistry warmStartRegistry, double warmStartEpochFraction) {
+        this.warmStartRegistry = warmStartRegistry;
+        this.warmStartEpochFraction = warmStartEpochFraction;
+        return this;
+    }
+
     /**
      * Builds and trains a {@link MultiLayerNetwork} using the specified configuration.
      *
@@ -130,22 +243,84 @@ public class ModelBuilder {
      * @throws IllegalStateException if required fields (input size or output size) are not set.
      */
     public MultiLayerNetwork buildAndTrain(DataSet trainingData) {
-        Nd4j.getRandom().setSeed(seed);
-        if (inputSize <= 0) {
-            throw new IllegalStateException("Input size must be set and greater than 0. Use withInputSize() to specify it.");
+        MultiLayerNetwork model = build();
+
+        int epochs = numEpochs;
+        WarmStartRegistry.Entry warmStartSource = warmStartRegistry == null ? null : warmStartRegistry.findClosest(model, this);
+        if (warmStartSource != null) {
+            model.setParams(warmStartSource.params());
+            epochs = Math.max(1, (int) Math.round(numEpochs * warmStartEpochFraction));
+            System.out.println("Warm-starting from " + warmStartSource.description() + " for " + epochs + " epochs");
         }
-        if (outputSize <= 0) {
-            throw new IllegalStateException("Output size must be set and greater than 0. Use withOutputSize() to specify it.");
+
+        double peakLearningRate = learningRate;
+        if (learningRateRangeTest) {
+            peakLearningRate = runLearningRateRangeTest(model, trainingData).suggestedLearningRate();
+            model.setLearningRate(peakLearningRate);
         }
-        if (hiddenLayerConfig == null || hiddenLayerConfig.isEmpty()) {
-            throw new IllegalStateException("Hidden layer configuration must be set. Use withHiddenLayerConfig() to specify it.");
+        if (oneCycleSchedule) {
+            model.setLearningRate(new OneCycleSchedule(peakLearningRate, epochs));
         }
 
+        // Train the model
+        train(model, trainingData, epochs);
+
+        if (warmStartRegistry != null) {
+            warmStartRegistry.register(model, this, warmStartSource, epochs);
+        }
+        return toInferenceModel(model);
+    }
+
+    /**
+     * Converts a trained model to the configured inference data type.
+     *
+     * @param model The trained model.
+     * @return The model itself if no other inference data type is configured, otherwise a converted copy.
+     */
+    public MultiLayerNetwork toInferenceModel(MultiLayerNetwork model) {
+        if (inferenceDataType == null || inferenceDataType == model.params().dataType()) {
+            return model;
+        }
+        return model.convertDataType(inferenceDataType);
+    }
+
+    /**
+     * Builds and initializes an untrained {@link MultiLayerNetwork} using the specified configuration.
+     *
+     * @return An initialized {@link MultiLayerNetwork} instance.
+     * @throws IllegalStateException if required fields (input size or output size) are not set.
+     */
+    public MultiLayerNetwork build() {
+        return build(buildConfiguration());
+    }
+
+    /**
+     * Builds and initializes an untrained {@link MultiLayerNetwork} from a configuration created earlier by
+     * {@link #buildConfiguration()}, seeded like {@link #build()}.
+     *
+     * @param config The network configuration.
+     * @return An initialized {@link MultiLayerNetwork} instance.
+     */
+    public MultiLayerNetwork build(MultiLayerConfiguration config) {
+        Nd4j.getRandom().setSeed(seed);
+        MultiLayerNetwork model = new MultiLayerNetwork(config);
+        model.init();
+        model.setListeners(new ScoreIterationListener(logFrequency));
+        return model;
+    }
+
+    /**
+     * Creates the network configuration of the current settings without allocating any parameters, so it is cheap to
+     * keep for a model that is only built later.
+     *
+     * @return The network configuration.
+     * @throws IllegalStateException if required fields (input size or output size) are not set.
+     */
+    public MultiLayerConfiguration buildConfiguration() {
+        validate();
+
         // Netzwerk-Konfiguration erstellen
-        NeuralNetConfiguration.ListBuilder listBuilder = new NeuralNetConfiguration.Builder()
-                .seed(seed) // Seed für die Netzwerk-Konfiguration
-                .updater(new org.nd4j.linalg.learning.config.Adam(learningRate))
-                .list();
+        NeuralNetConfiguration.ListBuilder listBuilder = createNetworkConfiguration().list();
 
         int prevLayerSize = inputSize; // Start mit der Eingabegröße
 
@@ -154,7 +329,7 @@ public class ModelBuilder {
             listBuilder.layer(new DenseLayer.Builder()
                     .nIn(prevLayerSize) // Größe der vorherigen Schicht
                     .nOut(layer.getFirst())    // Größe der aktuellen Schicht
-                    .activation(layer.getSecond())
+                    .activation(createHiddenLayerActivation(layer.getSecond()))
                     .build());
             prevLayerSize = layer.getFirst(); // Update für die nächste Schicht
         }
@@ -166,19 +341,220 @@ public class ModelBuilder {
                 .activation(outputLayerActivation)
                 .build());
 
+        return listBuilder.build();
+    }
 
-        MultiLayerConfiguration config = listBuilder.build();
+    /**
+     * Creates the network configuration shared by all layers: seed, optimizer, data type, workspace and cache modes.
+     *
+     * @return The configuration builder, ready to add the layers.
+     */
+    protected NeuralNetConfiguration.Builder createNetworkConfiguration() {
+        return new NeuralNetConfiguration.Builder()
+                .seed(seed) // Seed für die Netzwerk-Konfiguration
+                .dataType(dataType)
+                .trainingWorkspaceMode(trainingWorkspaceMode)
+                .inferenceWorkspaceMode(inferenceWorkspaceMode)
+                .cacheMode(cacheMode)
+                .updater(new org.nd4j.linalg.learning.config.Adam(learningRate));
+    }
 
-        // Netzwerk initialisieren
-        MultiLayerNetwork model = new MultiLayerNetwork(config);
-        model.init();
-        model.setListeners(new ScoreIterationListener(logFrequency));
+    /**
+     * Checks that all fields required by {@link #build()} are set.
+     *
+     * @throws IllegalStateException if a required field is not set.
+     */
+    protected void validate() {
+        if (inputSize <= 0) {
+            throw new IllegalStateException("Input size must be set and greater than 0. Use withInputSize() to specify it.");
+        }
+        if (outputSize <= 0) {
+            throw new IllegalStateException("Output size must be set and greater than 0. Use withOutputSize() to specify it.");
+        }
+        if (hiddenLayerConfig == null || hiddenLayerConfig.isEmpty()) {
+            throw new IllegalStateException("Hidden layer configuration must be set. Use withHiddenLayerConfig() to specify it.");
+        }
+        validateDataTypes();
+    }
 
-        // Train the model
-        for (int i = 0; i < numEpochs; i++) {
-            model.fit(trainingData);
+    /**
+     * Checks that the training and inference data types are floating point types supported by the CPU backend.
+     *
+     * @throws IllegalStateException if a data type is not supported.
+     */
+    protected void validateDataTypes() {
+        List<DataType> supported = List.of(DataType.FLOAT, DataType.DOUBLE, DataType.HALF, DataType.BFLOAT16);
+        if (!supported.contains(dataType)) {
+            throw new IllegalStateException("Data type " + dataType + " is not supported. Use one of " + supported + ".");
         }
+        if (inferenceDataType != null && !supported.contains(inferenceDataType)) {
+            throw new IllegalStateException("Inference data type " + inferenceDataType + " is not supported. Use one of " + supported + ".");
+        }
+    }
 
-        return model;
+    /**
+     * Describes the configuration for the reports of the {@link WarmStartRegistry}.
+     *
+     * @return The sizes and activation functions of the hidden layers.
+     */
+    protected String describeConfiguration() {
+        List<String> layers = new ArrayList<>();
+        List<String> activations = describeHiddenLayerActivations();
+        for (int i = 0; i < hiddenLayerConfig.size(); i++) {
+            layers.add(hiddenLayerConfig.get(i).getFirst() + " " + activations.get(i));
+        }
+        return String.join(", ", layers);
+    }
+
+    /**
+     * @return The names of the activation functions of the hidden layers.
+     */
+    protected List<String> describeHiddenLayerActivations() {
+        return hiddenLayerConfig.stream().map(layer -> layer.getSecond().name()).toList();
+    }
+
+    /**
+     * @return The parameter of the {@code ParametricSigmoid} of the hidden layers, or {@code null} if it is not used.
+     */
+    protected Double getSigmoidParameter() {
+        return null;
+    }
+
+    /**
+     * Computes how different a trained configuration of the same shape is from this configuration: the number of
+     * hidden layers with a different activation function, plus one if the other configuration uses a
+     * {@code ParametricSigmoid}.
+     *
+     * @param entry The trained configuration.
+     * @return The distance, 0 for the same configuration.
+     */
+    protected double warmStartDistance(WarmStartRegistry.Entry entry) {
+        List<String> activations = describeHiddenLayerActivations();
+        double distance = entry.sigmoidParameter() != null ? 1 : 0;
+        for (int i = 0; i < activations.size(); i++) {
+            if (!activations.get(i).equals(entry.activations().get(i))) {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Creates the activation function of a hidden layer from its configured {@link Activation}.
+     *
+     * @param activation The activation configured for the hidden layer.
+     * @return The activation function used by the layer.
+     */
+    protected IActivation createHiddenLayerActivation(Activation activation) {
+        return activation.getActivationFunction();
+    }
+
+    /**
+     * Trains the given model for the configured number of epochs.
+     *
+     * @param model        The initialized model to train.
+     * @param trainingData The dataset used to train the model.
+     */
+    protected void train(MultiLayerNetwork model, DataSet trainingData) {
+        train(model, trainingData, numEpochs);
+    }
+
+    /**
+     * Trains the given model for the given number of epochs, continuing from its current state.
+     * Reports the number of parameters and the average time per epoch, so that different
+     * architectures can be compared by their cost as well as by their accuracy.
+     *
+     * @param model        The model to train, as returned by {@link #build()}.
+     * @param trainingData The dataset used to train the model.
+     * @param epochs       The number of epochs to train.
+     */
+    public void train(MultiLayerNetwork model, DataSet trainingData, int epochs) {
+        DataSet preparedData = prepareTrainingData(model, trainingData);
+        System.out.println("Training model with " + model.numParams() + " parameters for " + epochs + " epochs");
+        long start = System.nanoTime();
+        for (int i = 0; i < epochs; i++) {
+            model.fit(preparedData);
+        }
+        double millisPerEpoch = (System.nanoTime() - start) / 1_000_000.0 / Math.max(epochs, 1);
+        System.out.println("Average time per epoch: " + String.format("%.2f", millisPerEpoch) + " ms");
+    }
+
+    /**
+     * Runs a learning rate range test on a copy of the model: the copy is trained for a few steps while the learning
+     * rate grows exponentially from 1e-7 to 1, until the loss diverges. The loss is smoothed with an exponential moving
+     * average, since a single step is noisy.
+     *
+     * @param model        The model to test, which is not modified.
+     * @param trainingData The dataset used to train the model.
+     * @return The loss curve and the suggested learning rate.
+     */
+    public LearningRateRangeTest runLearningRateRangeTest(MultiLayerNetwork model, DataSet trainingData) {
+        MultiLayerNetwork copy = model.clone();
+        copy.setListeners();
+        DataSet preparedData = prepareTrainingData(copy, trainingData);
+        double growth = Math.pow(RANGE_TEST_MAX_LEARNING_RATE / RANGE_TEST_MIN_LEARNING_RATE, 1.0 / (RANGE_TEST_STEPS - 1));
+
+        List<Double> learningRates = new ArrayList<>();
+        List<Double> losses = new ArrayList<>();
+        double averageLoss = 0;
+        double bestLoss = Double.MAX_VALUE;
+        double bestLearningRate = RANGE_TEST_MIN_LEARNING_RATE;
+        double currentLearningRate = RANGE_TEST_MIN_LEARNING_RATE;
+        for (int step = 0; step < RANGE_TEST_STEPS; step++) {
+            copy.setLearningRate(currentLearningRate);
+            copy.fit(preparedData);
+            averageLoss = RANGE_TEST_SMOOTHING * averageLoss + (1 - RANGE_TEST_SMOOTHING) * copy.score();
+            double smoothedLoss = averageLoss / (1 - Math.pow(RANGE_TEST_SMOOTHING, step + 1)); // Bias correction
+            if (Double.isNaN(smoothedLoss) || smoothedLoss > 4 * bestLoss) {
+                break; // The loss diverges, larger learning rates are useless
+            }
+            learningRates.add(currentLearningRate);
+            losses.add(smoothedLoss);
+            if (smoothedLoss < bestLoss) {
+                bestLoss = smoothedLoss;
+                bestLearningRate = currentLearningRate;
+            }
+            currentLearningRate *= growth;
+        }
+
+        double suggestedLearningRate = bestLearningRate / 10;
+        System.out.println("Learning rate range test: lowest loss " + String.format("%.4f", bestLoss) + " at "
+                + bestLearningRate + ", suggested learning rate " + suggestedLearningRate);
+        return new LearningRateRangeTest(learningRates, losses, suggestedLearningRate);
+    }
+
+    /**
+     * Converts a dataset produced by the {@link DataSetBuilder} to the layout expected by the models of this builder.
+     * Dense models use the flattened features as they are.
+     *
+     * @param data The dataset with flattened features.
+     * @return The dataset in the layout expected by the model.
+     */
+    public DataSet prepareDataSet(DataSet data) {
+        return data;
+    }
+
+    /**
+     * Converts a dataset produced by the {@link DataSetBuilder} to the layout and the data type of the given model,
+     * as done by {@link #train(MultiLayerNetwork, DataSet, int)} before fitting.
+     *
+     * @param model The model that is trained on the dataset.
+     * @param data  The dataset with flattened features.
+     * @return The dataset ready to be passed to {@link MultiLayerNetwork#fit(DataSet)}.
+     */
+    public DataSet prepareTrainingData(MultiLayerNetwork model, DataSet data) {
+        return castToModelDataType(model, prepareDataSet(data));
+    }
+
+    private static DataSet castToModelDataType(MultiLayerNetwork model, DataSet data) {
+        DataType modelDataType = model.params().dataType();
+        if (data.getFeatures().dataType() == modelDataType) {
+            return data;
+        }
+        return new DataSet(data.getFeatures().castTo(modelDataType), data.getLabels().castTo(modelDataType));
+    }
+
+    public int getNumEpochs() {
+        return numEpochs;
     }
 }
@@ -0,0 +1,132 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.example.SignClassification;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates several trained models in a single pass over the testing data.
+ *
+ * <p>Unlike one {@link Evaluator} per model, every minibatch of the testing data is read and preprocessed only once and
+ * is then fed to all models, optionally in parallel. This matters when the testing data is streamed or read from disk.</p>
+ */
+public class MultiModelEvaluator {
+    private final List<MultiLayerNetwork> models;
+    private int parallelism = 1;
+    private int batchSize = 256;
+
+    /**
+     * @param models The trained models to evaluate.
+     */
+    public MultiModelEvaluator(List<MultiLayerNetwork> models) {
+        this.models = models;
+    }
+
+    /**
+     * Sets the number of models that are fed with a minibatch at the same time. Defaults to 1.
+     *
+     * @param parallelism The number of threads used for the evaluation.
+     * @return The current instance of {@link MultiModelEvaluator} for chaining.
+     */
+    public MultiModelEvaluator withParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the minibatch size used when evaluating an in-memory {@link DataSet}. Defaults to 256.
+     *
+     * @param batchSize The number of examples per minibatch.
+     * @return The current instance of {@link MultiModelEvaluator} for chaining.
+     */
+    public MultiModelEvaluator withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Evaluates all models on an in-memory dataset, split into minibatches.
+     *
+     * @param testingData The dataset used for testing.
+     * @return One evaluation per model, in the order of the models.
+     */
+    public List<Evaluation> evaluate(DataSet testingData) {
+        if (testingData.numExamples() <= batchSize) {
+            return evaluate(List.of(testingData).iterator());
+        }
+        return evaluate(testingData.batchBy(batchSize).iterator());
+    }
+
+    /**
+     * Evaluates all models in a single pass over the minibatches of an iterator.
+     *
+     * @param testingData The iterator providing the testing data.
+     * @return One evaluation per model, in the order of the models.
+     */
+    public List<Evaluation> evaluate(DataSetIterator testingData) {
+        if (testingData.resetSupported()) {
+            testingData.reset();
+        }
+        return evaluate((Iterator<DataSet>) testingData);
+    }
+
+    private List<Evaluation> evaluate(Iterator<DataSet> batches) {
+        if (parallelism <= 0) {
+            throw new IllegalStateException("Parallelism must be positive. Use withParallelism() to set it.");
+        }
+        List<String> labels = Arrays.stream(SignClassification.values()).map(SignClassification::name).toList();
+        List<Evaluation> evaluations = new ArrayList<>();
+        for (int i = 0; i < models.size(); i++) {
+            evaluations.add(new Evaluation(labels));
+        }
+
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(Math.min(parallelism, models.size())) : null;
+        try {
+            while (batches.hasNext()) {
+                DataSet batch = batches.next();
+                INDArray features = batch.getFeatures();
+                INDArray batchLabels = batch.getLabels();
+
+                if (executor == null) {
+                    for (int i = 0; i < models.size(); i++) {
+                        evaluations.get(i).eval(batchLabels, models.get(i).output(features, false));
+                    }
+                    continue;
+                }
+
+                // Every model only touches its own evaluation, so the models can be fed in parallel
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < models.size(); i++) {
+                    MultiLayerNetwork model = models.get(i);
+                    Evaluation evaluation = evaluations.get(i);
+                    futures.add(executor.submit(() -> evaluation.eval(batchLabels, model.output(features, false))));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Evaluation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Evaluation of a model failed", e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        return evaluations;
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.deep_learing_network;
+
+import org.nd4j.linalg.schedule.ISchedule;
+import org.nd4j.shade.jackson.annotation.JsonProperty;
+
+/**
+ * The one-cycle learning rate schedule: the learning rate rises from {@code maxLearningRate / 25} to the maximum during
+ * the first 30 % of the iterations and then falls to {@code maxLearningRate / 25 / 10^4}, both along a cosine curve.
+ * The models are trained on the full dataset in every epoch, so one iteration is one epoch.
+ */
+public class OneCycleSchedule implements ISchedule {
+    private static final double WARMUP_FRACTION = 0.3;
+    private static final double INITIAL_DIVISOR = 25;
+    private static final double FINAL_DIVISOR = 1e4;
+
+    private final double maxLearningRate;
+    private final int totalIterations;
+
+    /**
+     * @param maxLearningRate The learning rate at the peak of the cycle, e.g. found by a learning rate range test.
+     * @param totalIterations The number of iterations of the cycle, the learning rate stays at its final value after it.
+     */
+    public OneCycleSchedule(@JsonProperty("maxLearningRate") double maxLearningRate,
+                            @JsonProperty("totalIterations") int totalIterations) {
+        if (maxLearningRate <= 0 || totalIterations <= 0) {
+            throw new IllegalArgumentException("The maximum learning rate and the number of iterations must be positive");
+        }
+        this.maxLearningRate = maxLearningRate;
+        this.totalIterations = totalIterations;
+    }
+
+    @Override
+    public double valueAt(int iteration, int epoch) {
+        double initialLearningRate = maxLearningRate / INITIAL_DIVISOR;
+        int warmupIterations = Math.max(1, (int) Math.round(totalIterations * WARMUP_FRACTION));
+        if (iteration < warmupIterations) {
+            return anneal(initialLearningRate, maxLearningRate, (double) iteration / warmupIterations);
+        }
+        int annealingIterations = Math.max(1, totalIterations - 1 - warmupIterations);
+        double progress = Math.min(1.0, (double) (iteration - warmupIterations) / annealingIterations);
+        return anneal(maxLearningRate, initialLearningRate / FINAL_DIVISOR, progress);
+    }
+
+    /**
+     * Moves from {@code from} to {@code to} along half a cosine period.
+     */
+    private static double anneal(double from, double to, double progress) {
+        return to + (from - to) / 2 * (1 + Math.cos(Math.PI * progress));
+    }
+
+    @Override
+    public ISchedule clone() {
+        return new OneCycleSchedule(maxLearningRate, totalIterations);
+    }
+
+    public double getMaxLearningRate() {
+        return maxLearningRate;
+    }
+
+    public int getTotalIterations() {
+        return totalIterations;
+    }
+
+    @Override
+    public String toString() {
+        return "OneCycleSchedule(maxLearningRate=" + maxLearningRate + ", totalIterations=" + totalIterations + ")";
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.blas.Blas;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Environment;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Trains a model with data parallelism across threads of the same JVM, in the style of DL4J's ParallelWrapper.
+ *
+ * <p>Every thread trains its own replica of the model on different minibatches. After every
+ * {@code averagingFrequency} minibatches per replica, the parameters and the Adam updater state of the replicas are
+ * averaged. Our layers are too small for a single {@code fit} call to keep all cores busy, so several replicas with
+ * fewer BLAS threads each make better use of the machine.</p>
+ */
+public class ParallelTrainer {
+    private static final List<Integer> SCALING_THREAD_COUNTS = List.of(1, 2, 4, 8, 16);
+    private static final int BENCHMARK_EPOCHS = 3;
+
+    private final ModelBuilder modelBuilder;
+    private int threads = 0;
+    private int batchSize = 32;
+    private int averagingFrequency = 5;
+
+    /**
+     * @param modelBuilder The fully configured builder of the trained model. Its number of epochs is the number of
+     *                     passes over the training data.
+     */
+    public ParallelTrainer(ModelBuilder modelBuilder) {
+        this.modelBuilder = modelBuilder;
+    }
+
+    /**
+     * Sets the number of replicas trained in parallel. Defaults to 0, which picks the fastest thread count with
+     * {@link #autoTuneThreads(DataSet)} before training.
+     *
+     * @param threads The number of threads, or 0 to tune it automatically.
+     * @return The current instance of {@link ParallelTrainer} for chaining.
+     */
+    public ParallelTrainer withThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the number of examples per minibatch. Defaults to 32.
+     *
+     * @param batchSize The minibatch size.
+     * @return The current instance of {@link ParallelTrainer} for chaining.
+     */
+    public ParallelTrainer withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of minibatches every replica trains between two averaging steps. Defaults to 5.
+     *
+     * @param averagingFrequency The number of minibatches per replica and round.
+     * @return The current instance of {@link ParallelTrainer} for chaining.
+     */
+    public ParallelTrainer withAveragingFrequency(int averagingFrequency) {
+        this.averagingFrequency = averagingFrequency;
+        return this;
+    }
+
+    /**
+     * Builds and trains the model with the configured number of threads.
+     *
+     * @param trainingData The dataset used to train the model.
+     * @return The trained model, converted to the inference data type of the model builder.
+     * @throws IllegalStateException if the batch size or the averaging frequency is not positive.
+     */
+    public MultiLayerNetwork train(DataSet trainingData) {
+        int threadCount = threads > 0 ? threads : autoTuneThreads(trainingData);
+        MultiLayerNetwork model = modelBuilder.build();
+        long start = System.nanoTime();
+        train(model, trainingData, threadCount, modelBuilder.getNumEpochs());
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.println("Trained " + modelBuilder.getNumEpochs() + " epochs on " + threadCount + " threads in "
+                + String.format("%.1f", seconds) + " s");
+        return modelBuilder.toInferenceModel(model);
+    }
+
+    /**
+     * Measures the throughput of a few epochs for every thread count up to the number of cores and returns the fastest.
+     *
+     * @param trainingData The dataset used to train the model.
+     * @return The thread count with the most samples per second.
+     */
+    public int autoTuneThreads(DataSet trainingData) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int bestThreads = 1;
+        double bestThroughput = 0;
+        for (int threadCount : SCALING_THREAD_COUNTS) {
+            if (threadCount > cores) {
+                break;
+            }
+            double throughput = measureThroughput(trainingData, threadCount);
+            if (throughput > bestThroughput) {
+                bestThroughput = throughput;
+                bestThreads = threadCount;
+            }
+        }
+        System.out.println("Auto-tuned the number of training threads to " + bestThreads);
+        return bestThreads;
+    }
+
+    /**
+     * Prints the training throughput in samples per second at 1, 2, 4, 8 and 16 threads and the speedup over a single
+     * thread. Thread counts above the number of cores are measured as well, to show where the scaling stops.
+     *
+     * @param trainingData The dataset used to train the model.
+     */
+    public void printScalingReport(DataSet trainingData) {
+        System.out.println("---------------------------------Parallel Training Scaling---------------------------------");
+        System.out.println("Cores: " + Runtime.getRuntime().availableProcessors() + ", batch size: " + batchSize
+                + ", averaging every " + averagingFrequency + " minibatches");
+        System.out.println(String.format("%-8s %16s %10s", "Threads", "samples/s", "speedup"));
+        double singleThreadThroughput = 0;
+        for (int threadCount : SCALING_THREAD_COUNTS) {
+            double throughput = measureThroughput(trainingData, threadCount);
+            if (threadCount == 1) {
+                singleThreadThroughput = throughput;
+            }
+            System.out.println(String.format("%-8d %16.1f %9.2fx", threadCount, throughput, throughput / singleThreadThroughput));
+        }
+    }
+
+    private double measureThroughput(DataSet trainingData, int threadCount) {
+        MultiLayerNetwork model = modelBuilder.build();
+        train(model, trainingData, threadCount, 1); // warm up
+        long start = System.nanoTime();
+        train(model, trainingData, threadCount, BENCHMARK_EPOCHS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return (double) trainingData.numExamples() * BENCHMARK_EPOCHS / seconds;
+    }
+
+    private void train(MultiLayerNetwork model, DataSet trainingData, int threadCount, int epochs) {
+        if (batchSize <= 0) {
+            throw new IllegalStateException("Batch size must be positive. Use withBatchSize() to set it.");
+        }
+        if (averagingFrequency <= 0) {
+            throw new IllegalStateException("Averaging frequency must be positive. Use withAveragingFrequency() to set it.");
+        }
+        DataSet preparedData = modelBuilder.prepareTrainingData(model, trainingData);
+        List<DataSet> batches = preparedData.numExamples() > batchSize ? preparedData.batchBy(batchSize) : List.of(preparedData);
+
+        List<MultiLayerNetwork> replicas = new ArrayList<>();
+        replicas.add(model);
+        for (int i = 1; i < threadCount; i++) {
+            replicas.add(model.clone());
+        }
+
+        // Every replica gets an equal share of the cores for its BLAS calls and the other native operations
+        int threadsPerReplica = Math.max(1, Runtime.getRuntime().availableProcessors() / threadCount);
+        Environment environment = Nd4j.getEnvironment();
+        Blas blas = Nd4j.factory().blas();
+        int previousMaxThreads = environment.maxThreads();
+        int previousBlasThreads = blas.getMaxThreads();
+        environment.setMaxThreads(threadsPerReplica);
+        blas.setMaxThreads(threadsPerReplica);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                int batchesPerRound = threadCount * averagingFrequency;
+                for (int roundStart = 0; roundStart < batches.size(); roundStart += batchesPerRound) {
+                    int roundEnd = Math.min(batches.size(), roundStart + batchesPerRound);
+                    List<Future<?>> futures = new ArrayList<>();
+                    List<Integer> weights = new ArrayList<>();
+                    for (int replica = 0; replica < threadCount; replica++) {
+                        MultiLayerNetwork replicaModel = replicas.get(replica);
+                        int firstBatch = roundStart + replica;
+                        // The last round of an epoch may leave some replicas without a minibatch, they get no weight
+                        weights.add(Math.max(0, (roundEnd - firstBatch + threadCount - 1) / threadCount));
+                        futures.add(executor.submit(() -> {
+                            for (int batch = firstBatch; batch < roundEnd; batch += threadCount) {
+                                replicaModel.fit(batches.get(batch));
+                            }
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                    if (threadCount > 1) {
+                        ParameterAveraging.averageInto(replicas, weights);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parallel training was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Training of a replica failed", e.getCause());
+        } finally {
+            executor.shutdown();
+            environment.setMaxThreads(previousMaxThreads);
+            blas.setMaxThreads(previousBlasThreads);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.List;
+
+/**
+ * Averages the parameters and the updater state of model replicas that are trained on different parts of the data.
+ */
+public final class ParameterAveraging {
+
+    private ParameterAveraging() {
+    }
+
+    /**
+     * Computes the average of arrays of equal shape, weighted by the number of examples each replica was trained on.
+     *
+     * @param arrays  The flattened parameters or updater states of the replicas.
+     * @param weights The number of training examples of every replica.
+     * @return A new array with the weighted average.
+     */
+    public static INDArray weightedAverage(List<INDArray> arrays, List<Integer> weights) {
+        if (arrays.isEmpty() || arrays.size() != weights.size()) {
+            throw new IllegalArgumentException("There must be exactly one weight for each of at least one array");
+        }
+        long totalWeight = weights.stream().mapToLong(Integer::longValue).sum();
+        INDArray average = arrays.get(0).mul(weights.get(0) / (double) totalWeight);
+        for (int i = 1; i < arrays.size(); i++) {
+            average.addi(arrays.get(i).mul(weights.get(i) / (double) totalWeight));
+        }
+        return average;
+    }
+
+    /**
+     * Averages the parameters and the Adam moment estimates of the replicas and writes the result into all of them.
+     *
+     * @param replicas The replicas of the same network configuration.
+     * @param weights  The number of training examples of every replica.
+     */
+    public static void averageInto(List<MultiLayerNetwork> replicas, List<Integer> weights) {
+        INDArray parameters = weightedAverage(replicas.stream().map(MultiLayerNetwork::params).toList(), weights);
+        INDArray updaterState = weightedAverage(replicas.stream().map(ParameterAveraging::updaterState).toList(), weights);
+        for (MultiLayerNetwork replica : replicas) {
+            apply(replica, parameters, updaterState);
+        }
+    }
+
+    /**
+     * Replaces the parameters and the updater state of a model in place.
+     *
+     * @param model        The model to update.
+     * @param parameters   The flattened parameters.
+     * @param updaterState The flattened updater state.
+     */
+    public static void apply(MultiLayerNetwork model, INDArray parameters, INDArray updaterState) {
+        model.params().assign(parameters);
+        updaterState(model).assign(updaterState);
+    }
+
+    /**
+     * @param model The model.
+     * @return The view of the flattened updater state of the model, created if the model was not trained yet.
+     */
+    public static INDArray updaterState(MultiLayerNetwork model) {
+        return model.getUpdater(true).getStateViewArray();
+    }
+}
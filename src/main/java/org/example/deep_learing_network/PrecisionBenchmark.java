@@ -0,0 +1,87 @@
+package org.example.deep_learing_network;
+
+import org.bytedeco.javacpp.Pointer;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the training time per epoch and the peak off-heap memory of a model configuration for every combination
+ * of data type, training workspace mode and cache mode supported by the {@link ModelBuilder}.
+ */
+public class PrecisionBenchmark {
+    private static final List<DataType> DATA_TYPES = List.of(DataType.FLOAT, DataType.HALF, DataType.BFLOAT16);
+    private static final List<WorkspaceMode> WORKSPACE_MODES = List.of(WorkspaceMode.ENABLED, WorkspaceMode.NONE);
+    private static final List<CacheMode> CACHE_MODES = List.of(CacheMode.NONE, CacheMode.HOST);
+
+    private final ModelBuilder modelBuilder;
+    private final int epochs;
+
+    /**
+     * @param modelBuilder The fully configured builder of the benchmarked model. Its data type, workspace and cache
+     *                     mode options are changed by the benchmark.
+     * @param epochs       The number of epochs trained for every combination.
+     */
+    public PrecisionBenchmark(ModelBuilder modelBuilder, int epochs) {
+        this.modelBuilder = modelBuilder;
+        this.epochs = epochs;
+    }
+
+    /**
+     * Trains the model once for every combination and prints the time per epoch and the peak off-heap memory.
+     * Combinations that are not supported by the backend are reported as such.
+     *
+     * @param trainingData The dataset used to train the model.
+     */
+    public void run(DataSet trainingData) {
+        System.out.println("---------------------------------Precision and Workspace Benchmark---------------------------------");
+        System.out.println(String.format("%-10s %-10s %-6s %16s %22s", "DataType", "Workspace", "Cache", "ms per epoch", "peak off-heap (MiB)"));
+        for (DataType dataType : DATA_TYPES) {
+            for (WorkspaceMode workspaceMode : WORKSPACE_MODES) {
+                for (CacheMode cacheMode : CACHE_MODES) {
+                    modelBuilder.withDataType(dataType)
+                            .withTrainingWorkspaceMode(workspaceMode)
+                            .withInferenceWorkspaceMode(workspaceMode)
+                            .withCacheMode(cacheMode);
+                    String combination = String.format("%-10s %-10s %-6s", dataType, workspaceMode, cacheMode);
+                    try {
+                        System.out.println(combination + " " + benchmark(trainingData));
+                    } catch (RuntimeException e) {
+                        System.out.println(combination + " not supported: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        modelBuilder.withDataType(DataType.FLOAT)
+                .withTrainingWorkspaceMode(WorkspaceMode.ENABLED)
+                .withInferenceWorkspaceMode(WorkspaceMode.ENABLED)
+                .withCacheMode(CacheMode.NONE);
+    }
+
+    private String benchmark(DataSet trainingData) {
+        System.gc(); // release the native memory of the previous combination before measuring
+        MultiLayerNetwork model = modelBuilder.build();
+        modelBuilder.train(model, trainingData, 1); // warm up
+
+        AtomicLong peakBytes = new AtomicLong(Pointer.totalBytes());
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakBytes.accumulateAndGet(Pointer.totalBytes(), Math::max), 0, 5, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        try {
+            modelBuilder.train(model, trainingData, epochs);
+        } finally {
+            sampler.shutdownNow();
+        }
+        double millisPerEpoch = (System.nanoTime() - start) / 1_000_000.0 / Math.max(epochs, 1);
+
+        return String.format("%16.2f %22.1f", millisPerEpoch, peakBytes.get() / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.example.inference.CompactModel;
+import org.example.inference.CompactModelWriter;
+import org.example.inference.Quantization;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Compares the accuracy, the inference latency of the compact model and the size of the compact model file of a
+ * trained model at several sparsity levels of its first dense layer.
+ */
+public class PruningBenchmark {
+    private static final List<Double> SPARSITIES = List.of(0.0, 0.5, 0.8, 0.9, 0.95, 0.98);
+    private static final int PRUNED_LAYER = 0;
+
+    private final ModelBuilder modelBuilder;
+    private final int fineTuningEpochs;
+    private final Quantization quantization;
+
+    /**
+     * @param modelBuilder     The builder the model was built with.
+     * @param fineTuningEpochs The number of epochs the model is fine-tuned after pruning, 0 to skip fine-tuning.
+     * @param quantization     The encoding of the weights in the compact model file.
+     */
+    public PruningBenchmark(ModelBuilder modelBuilder, int fineTuningEpochs, Quantization quantization) {
+        this.modelBuilder = modelBuilder;
+        this.fineTuningEpochs = fineTuningEpochs;
+        this.quantization = quantization;
+    }
+
+    /**
+     * Prunes a copy of the model for every sparsity level and prints the trade-off between accuracy, latency and size.
+     *
+     * @param trainedModel The trained dense model, which is not modified.
+     * @param trainingData The dataset used for fine-tuning.
+     * @param testingData  The dataset used for testing.
+     */
+    public void run(MultiLayerNetwork trainedModel, DataSet trainingData, DataSet testingData) {
+        MagnitudePruner pruner = new MagnitudePruner(modelBuilder);
+        CompactModelExporter exporter = new CompactModelExporter();
+
+        System.out.println("---------------------------------Pruning of the First Dense Layer---------------------------------");
+        System.out.println(String.format("%-9s %10s %14s %12s", "Sparsity", "Accuracy", "Latency (µs)", "Size (KiB)"));
+        for (double sparsity : SPARSITIES) {
+            MultiLayerNetwork model = trainedModel.clone();
+            INDArray mask = pruner.prune(model, PRUNED_LAYER, sparsity);
+            if (fineTuningEpochs > 0 && sparsity > 0) {
+                pruner.fineTune(model, PRUNED_LAYER, mask, trainingData, fineTuningEpochs);
+            }
+            Evaluation evaluation = new Evaluator(model, testingData).getEvaluationResult();
+
+            // Sparse layers are evaluated and stored in CSR format, as done by the export
+            CompactModel compactModel = exporter.toCompactModel(model).withSparseLayers(CompactModelExporter.SPARSE_LAYER_MAX_DENSITY);
+            System.out.println(String.format("%-9.2f %10.4f %14.1f %12d", sparsity, evaluation.accuracy(),
+                    measureLatencyMicros(compactModel, testingData), fileSize(compactModel) / 1024));
+        }
+    }
+
+    private static double measureLatencyMicros(CompactModel compactModel, DataSet testingData) {
+        INDArray features = testingData.getFeatures().castTo(DataType.FLOAT);
+        float[][] inputs = new float[features.rows()][];
+        for (int example = 0; example < inputs.length; example++) {
+            inputs[example] = features.getRow(example).toFloatVector();
+        }
+        for (float[] input : inputs) {
+            compactModel.predict(input); // warm up
+        }
+        long start = System.nanoTime();
+        for (float[] input : inputs) {
+            compactModel.predict(input);
+        }
+        return (System.nanoTime() - start) / 1000.0 / Math.max(inputs.length, 1);
+    }
+
+    private long fileSize(CompactModel compactModel) {
+        try {
+            Path file = Files.createTempFile("pruned", ".smod");
+            try {
+                new CompactModelWriter(quantization).write(compactModel, file);
+                return Files.size(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the pruned compact model", e);
+        }
+    }
+}
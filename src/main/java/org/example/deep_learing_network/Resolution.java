@@ -0,0 +1,25 @@
+package org.example.deep_learing_network;
+
+/**
+ * A target resolution the cropped signs are scaled to before they are flattened to feature vectors.
+ *
+ * @param rows The number of rows (height).
+ * @param cols The number of columns (width).
+ */
+public record Resolution(int rows, int cols) {
+
+    /**
+     * Returns the file name of a dataset at this resolution, e.g. {@code trainingData_60x80.bin}.
+     *
+     * @param baseName The base name of the dataset, e.g. {@code trainingData}.
+     * @return The file name of the dataset.
+     */
+    public String dataSetFileName(String baseName) {
+        return baseName + "_" + rows + "x" + cols + ".bin";
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols;
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A model that is trained in several steps, e.g. by a search that stops training unpromising configurations early.
+ * The network configuration is taken when the candidate is created, so later changes to the {@link ModelBuilder} do not
+ * affect it, but the parameters are only allocated when the model is first trained or requested.
+ */
+public class TrainingCandidate {
+    private final ModelBuilder modelBuilder;
+    private final MultiLayerConfiguration configuration;
+    private MultiLayerNetwork model;
+    private boolean released = false;
+    private final DataSet trainingData;
+    private final DataSet testingData;
+    private int epochsTrained = 0;
+
+    /**
+     * Creates a candidate with an untrained model of the current configuration of the builder.
+     *
+     * @param modelBuilder The builder used to build and train the model.
+     * @param trainingData The dataset used to train the model.
+     * @param testingData  The dataset used to evaluate the model.
+     */
+    public TrainingCandidate(ModelBuilder modelBuilder, DataSet trainingData, DataSet testingData) {
+        this.modelBuilder = modelBuilder;
+        this.configuration = modelBuilder.buildConfiguration();
+        this.trainingData = trainingData;
+        this.testingData = testingData;
+    }
+
+    /**
+     * Continues training the model from where the previous call stopped.
+     *
+     * @param epochs The number of additional epochs to train.
+     */
+    public void trainFor(int epochs) {
+        if (epochs <= 0) {
+            return;
+        }
+        modelBuilder.train(getModel(), trainingData, epochs);
+        epochsTrained += epochs;
+    }
+
+    /**
+     * Evaluates the model in its current state on the testing data.
+     *
+     * @return An Evaluation object of the framework
+     */
+    public Evaluation evaluate() {
+        return new Evaluator(getModel(), modelBuilder.prepareDataSet(testingData)).getEvaluationResult();
+    }
+
+    /**
+     * Evaluates several candidates. Candidates that share the same testing data and use it without conversion are
+     * evaluated together by a {@link MultiModelEvaluator} in a single pass over the data, the others one by one.
+     *
+     * @param candidates  The candidates to evaluate.
+     * @param parallelism The number of models evaluated at the same time.
+     * @return One evaluation per candidate, in the order of the candidates.
+     */
+    public static List<Evaluation> evaluateAll(List<TrainingCandidate> candidates, int parallelism) {
+        Evaluation[] evaluations = new Evaluation[candidates.size()];
+        Map<DataSet, List<Integer>> sharedTestingData = new IdentityHashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            TrainingCandidate candidate = candidates.get(i);
+            if (candidate.modelBuilder.prepareDataSet(candidate.testingData) == candidate.testingData) {
+                sharedTestingData.computeIfAbsent(candidate.testingData, data -> new ArrayList<>()).add(i);
+            } else {
+                evaluations[i] = candidate.evaluate();
+            }
+        }
+
+        sharedTestingData.forEach((testingData, indices) -> {
+            List<MultiLayerNetwork> models = indices.stream().map(i -> candidates.get(i).getModel()).toList();
+            List<Evaluation> results = new MultiModelEvaluator(models).withParallelism(parallelism).evaluate(testingData);
+            for (int i = 0; i < indices.size(); i++) {
+                evaluations[indices.get(i)] = results.get(i);
+            }
+        });
+        return Arrays.asList(evaluations);
+    }
+
+    public int getEpochsTrained() {
+        return epochsTrained;
+    }
+
+    /**
+     * Returns the model, building it on the first call.
+     *
+     * @return The model in its current state of training.
+     * @throws IllegalStateException if the model was released.
+     */
+    public synchronized MultiLayerNetwork getModel() {
+        if (released) {
+            throw new IllegalStateException("The model of the candidate was released");
+        }
+        if (model == null) {
+            model = modelBuilder.build(configuration);
+        }
+        return model;
+    }
+
+    /**
+     * Drops the model, e.g. once a search eliminated the candidate, so its parameters can be freed. The number of
+     * epochs trained is kept.
+     */
+    public synchronized void release() {
+        released = true;
+        model = null;
+    }
+
+    public ModelBuilder getModelBuilder() {
+        return modelBuilder;
+    }
+
+    public DataSet getTrainingData() {
+        return trainingData;
+    }
+
+    public DataSet getTestingData() {
+        return testingData;
+    }
+}
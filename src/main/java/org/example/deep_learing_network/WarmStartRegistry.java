@@ -0,0 +1,140 @@
+package org.example.deep_learing_network;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the trained parameters of the configurations of a sweep, so that the next configuration of the same shape can
+ * start from the parameters of the most similar one instead of random weights, see
+ * {@link ModelBuilder#withWarmStart(WarmStartRegistry, double)}.
+ *
+ * <p>Two configurations are compatible if all their parameter arrays have the same shapes. The distance between two
+ * compatible configurations is computed by the {@link ModelBuilder}: the number of hidden layers with a different
+ * activation function, or the log ratio of the parameters of a {@code ParametricSigmoid}. Only configurations up to
+ * the maximum distance are used, and only the latest {@code maxEntries} configurations are kept, since every entry
+ * holds a copy of all parameters.</p>
+ */
+public class WarmStartRegistry {
+    private final double maxDistance;
+    private final int maxEntries;
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Start> starts = new ArrayList<>();
+
+    /**
+     * @param maxDistance The maximum distance of a configuration to warm-start from.
+     * @param maxEntries  The number of trained configurations kept.
+     */
+    public WarmStartRegistry(double maxDistance, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The number of entries must be positive");
+        }
+        this.maxDistance = maxDistance;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Finds the closest compatible configuration within the maximum distance. An entry of the same configuration is
+     * skipped, since warm-starting from it would only continue the training of the same model, e.g. in a repeated
+     * cross-validation fold.
+     *
+     * @param model        The untrained model.
+     * @param modelBuilder The builder the model was built with, used to compute the distances.
+     * @return The closest entry, or {@code null} if there is none.
+     */
+    synchronized Entry findClosest(MultiLayerNetwork model, ModelBuilder modelBuilder) {
+        String shapes = describeShapes(model);
+        String description = modelBuilder.describeConfiguration();
+        Entry closest = null;
+        double closestDistance = Double.MAX_VALUE;
+        for (Entry entry : entries) {
+            if (!entry.shapes().equals(shapes) || entry.description().equals(description)) {
+                continue;
+            }
+            double distance = modelBuilder.warmStartDistance(entry);
+            if (distance <= maxDistance && distance < closestDistance) {
+                closest = entry;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Stores a copy of the parameters of a trained model and records how its training was started.
+     *
+     * @param model           The trained model.
+     * @param modelBuilder    The builder the model was built with.
+     * @param warmStartSource The configuration the model was warm-started from, or {@code null} for a cold start.
+     * @param epochs          The number of epochs the model was trained.
+     */
+    synchronized void register(MultiLayerNetwork model, ModelBuilder modelBuilder, Entry warmStartSource, int epochs) {
+        String description = modelBuilder.describeConfiguration();
+        entries.removeIf(entry -> entry.description().equals(description));
+        if (entries.size() == maxEntries) {
+            entries.remove(0);
+        }
+        entries.add(new Entry(description, describeShapes(model), modelBuilder.describeHiddenLayerActivations(),
+                modelBuilder.getSigmoidParameter(), model.params().dup()));
+        starts.add(new Start(description, warmStartSource == null ? null : warmStartSource.description(), epochs));
+    }
+
+    /**
+     * @return How the most recently trained model was started, or {@code null} if no model was trained yet.
+     */
+    public synchronized Start getLastStart() {
+        return starts.isEmpty() ? null : starts.get(starts.size() - 1);
+    }
+
+    /**
+     * @return How every model was started, in the order they were trained.
+     */
+    public synchronized List<Start> getStarts() {
+        return List.copyOf(starts);
+    }
+
+    private static String describeShapes(MultiLayerNetwork model) {
+        return model.paramTable().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(parameter -> parameter.getKey() + Arrays.toString(parameter.getValue().shape()))
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * A trained configuration.
+     *
+     * @param description      The description of the configuration.
+     * @param shapes           The names and shapes of all parameter arrays.
+     * @param activations      The names of the activation functions of the hidden layers.
+     * @param sigmoidParameter The parameter of the {@code ParametricSigmoid} of the hidden layers, or {@code null}.
+     * @param params           A copy of the trained parameters.
+     */
+    public record Entry(String description, String shapes, List<String> activations, Double sigmoidParameter,
+                        INDArray params) {
+    }
+
+    /**
+     * How the training of a model was started.
+     *
+     * @param description     The description of the configuration.
+     * @param warmStartedFrom The description of the configuration the parameters were taken from, {@code null} for a
+     *                        cold start from random weights.
+     * @param epochs          The number of epochs the model was trained.
+     */
+    public record Start(String description, String warmStartedFrom, int epochs) {
+
+        public boolean isWarmStart() {
+            return warmStartedFrom != null;
+        }
+
+        @Override
+        public String toString() {
+            return isWarmStart() ? "warm start from " + warmStartedFrom + ", " + epochs + " epochs" : "cold start, " + epochs + " epochs";
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.detection;
+
+import org.example.SignClassification;
+import org.opencv.core.Rect;
+
+/**
+ * A sign found in a scene image.
+ *
+ * @param boundingBox    The bounding box of the sign in the coordinates of the scene.
+ * @param classification The classification of the sign.
+ * @param confidence     The probability the model assigned to the classification.
+ */
+public record Detection(Rect boundingBox, SignClassification classification, double confidence) {
+
+    /**
+     * Computes the intersection over union of the bounding boxes of two detections.
+     *
+     * @param other The other detection.
+     * @return The overlap between 0 (disjoint) and 1 (identical).
+     */
+    public double intersectionOverUnion(Detection other) {
+        Rect a = boundingBox;
+        Rect b = other.boundingBox;
+        int intersectionWidth = Math.min(a.x + a.width, b.x + b.width) - Math.max(a.x, b.x);
+        int intersectionHeight = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        if (intersectionWidth <= 0 || intersectionHeight <= 0) {
+            return 0;
+        }
+        double intersection = (double) intersectionWidth * intersectionHeight;
+        return intersection / (a.area() + b.area() - intersection);
+    }
+}
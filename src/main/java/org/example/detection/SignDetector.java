@@ -0,0 +1,330 @@
+package org.example.detection;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.example.ImageCropper;
+import org.example.SignClassification;
+import org.example.deep_learing_network.DataSetBuilder;
+import org.example.deep_learing_network.ModelBuilder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Finds and classifies signs in full scene images with a model trained on cropped signs.
+ *
+ * <p>Candidate windows are proposed by sliding a square window over an image pyramid of the scene and, optionally,
+ * by the bounding boxes of the contours in the scene. Every window is cropped and flattened like a training image.
+ * The windows of all scenes are classified together in large batches, which keeps the forward passes efficient.
+ * The model has no background class, so windows are only kept if the probability of their classification reaches the
+ * minimum confidence. Overlapping windows of the same classification are suppressed, keeping the most confident one.</p>
+ */
+public class SignDetector {
+    private final MultiLayerNetwork model;
+    private final ModelBuilder modelBuilder;
+    private final DataSetBuilder dataSetBuilder;
+    private int windowSize = 64;
+    private double strideFraction = 0.5;
+    private double scaleFactor = 1.5;
+    private boolean contourProposals = true;
+    private double minConfidence = 0.9;
+    private double overlapThreshold = 0.3;
+    private int batchSize = 512;
+
+    /**
+     * @param model          The trained classification model.
+     * @param modelBuilder   The builder the model was built with, used to bring the features into the model layout.
+     * @param dataSetBuilder The builder configured with the target dimensions and channels the model was trained with.
+     */
+    public SignDetector(MultiLayerNetwork model, ModelBuilder modelBuilder, DataSetBuilder dataSetBuilder) {
+        this.model = model;
+        this.modelBuilder = modelBuilder;
+        this.dataSetBuilder = dataSetBuilder;
+    }
+
+    /**
+     * Sets the size of the square sliding window in pixels of a pyramid level. Defaults to 64.
+     *
+     * @param windowSize The window size in pixels.
+     * @return The current instance of {@link SignDetector} for chaining.
+     */
+    public SignDetector withWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    /**
+     * Sets the step between two windows as a fraction of the window size. Defaults to 0.5.
+     *
+     * @param strideFraction The stride relative to the window size.
+     * @return The current instance of {@link SignDetector} for chaining.
+     */
+    public SignDetector withStride(double strideFraction) {
+        this.strideFraction = strideFraction;
+        return this;
+    }
+
+    /**
+     * Sets the factor by which every level of the image pyramid is smaller than the previous one. Defaults to 1.5.
+     *
+     * @param scaleFactor The scale factor between two pyramid levels, greater than 1.
+     * @return The current instance of {@link SignDetector} for chaining.
+     */
+    public SignDetector withScaleFactor(double scaleFactor) {
+        this.scaleFactor = scaleFactor;
+        return this;
+    }
+
+    /**
+     * Configures whether the bounding boxes of the contours in the scene are classified in addition to the sliding
+     * windows. Defaults to true.
+     *
+     * @param contourProposals If true, contour bounding boxes are added to the candidate windows.
+     * @return The current instance of {@link SignDetector} for chaining.
+     */
+    public SignDetector withContourProposals(boolean contourProposals) {
+        this.contourProposals = contourProposals;
+        return this;
+    }
+
+    /**
+     * Sets the minimum probability of the classification of a window to be reported. Defaults to 0.9.
+     *
+     * @param minConfidence The minimum confidence between 0 and 1.
+     * @return The current instance of {@link SignDetector} for chaining.
+     */
+    public SignDetector withMinConfidence(double minConfidence) {
+        this.minConfidence = minConfidence;
+        return this;
+    }
+
+    /**
+     * Sets the intersection over union above which the less confident of two detections is suppressed. Defaults to 0.3.
+     *
+     * @param overlapThreshold The maximum overlap of two reported detections of the same classification.
+     * @return The current instance of {@link SignDetector} for chaining.
+     */
+    public SignDetector withOverlapThreshold(double overlapThreshold) {
+        this.overlapThreshold = overlapThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the number of windows classified in one forward pass. Defaults to 512.
+     *
+     * @param batchSize The number of windows per batch.
+     * @return The current instance of {@link SignDetector} for chaining.
+     */
+    public SignDetector withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Detects the signs in a single scene.
+     *
+     * @param scene The scene in RGBA format.
+     * @return The detections, most confident first.
+     */
+    public List<Detection> detect(Mat scene) {
+        return detectAll(List.of(scene)).get(0);
+    }
+
+    /**
+     * Detects the signs in several scenes, classifying the windows of all scenes in shared batches, and prints the
+     * throughput in scenes per second.
+     *
+     * @param scenes The scenes in RGBA format.
+     * @return The detections per scene, most confident first.
+     * @throws IllegalStateException if an option is out of range.
+     */
+    public List<List<Detection>> detectAll(List<Mat> scenes) {
+        validate();
+        long start = System.nanoTime();
+        List<List<Detection>> candidates = new ArrayList<>();
+        for (int i = 0; i < scenes.size(); i++) {
+            candidates.add(new ArrayList<>());
+        }
+
+        List<Candidate> pending = new ArrayList<>();
+        int[] windows = {0};
+        for (int sceneIndex = 0; sceneIndex < scenes.size(); sceneIndex++) {
+            int currentScene = sceneIndex;
+            forEachWindow(scenes.get(sceneIndex), (window, boxInScene) -> {
+                float[] features = toFeatures(window);
+                if (features == null) {
+                    return;
+                }
+                pending.add(new Candidate(currentScene, boxInScene, features));
+                windows[0]++;
+                if (pending.size() == batchSize) {
+                    classify(pending, candidates);
+                    pending.clear();
+                }
+            });
+        }
+        if (!pending.isEmpty()) {
+            classify(pending, candidates);
+        }
+
+        List<List<Detection>> detections = candidates.stream().map(this::suppressOverlaps).toList();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.println("Classified " + windows[0] + " windows of " + scenes.size() + " scenes, "
+                + String.format("%.2f", scenes.size() / seconds) + " scenes per second");
+        return detections;
+    }
+
+    /**
+     * Passes every candidate window of a scene to the consumer, together with its bounding box in the scene.
+     * The sliding windows are cut from the smaller pyramid levels, so large windows are cheap to crop.
+     */
+    private void forEachWindow(Mat scene, BiConsumer<Mat, Rect> consumer) {
+        int stride = Math.max(1, (int) Math.round(windowSize * strideFraction));
+        double scale = 1;
+        Mat level = scene;
+        while (level.rows() >= windowSize && level.cols() >= windowSize) {
+            for (int y = 0; y + windowSize <= level.rows(); y += stride) {
+                for (int x = 0; x + windowSize <= level.cols(); x += stride) {
+                    Rect boxInScene = clip(new Rect((int) Math.round(x * scale), (int) Math.round(y * scale),
+                            (int) Math.round(windowSize * scale), (int) Math.round(windowSize * scale)), scene);
+                    acceptWindow(consumer, new Mat(level, new Rect(x, y, windowSize, windowSize)), boxInScene);
+                }
+            }
+            scale *= scaleFactor;
+            Mat smaller = new Mat();
+            Imgproc.resize(scene, smaller, new Size(scene.cols() / scale, scene.rows() / scale), 0, 0, Imgproc.INTER_AREA);
+            if (level != scene) {
+                level.release();
+            }
+            level = smaller;
+        }
+        if (level != scene) {
+            level.release();
+        }
+
+        if (contourProposals) {
+            for (Rect box : proposeContourWindows(scene)) {
+                acceptWindow(consumer, new Mat(scene, box), box);
+            }
+        }
+    }
+
+    /**
+     * Passes a window to the consumer and releases its header afterwards, the pixels still belong to the scene.
+     */
+    private static void acceptWindow(BiConsumer<Mat, Rect> consumer, Mat window, Rect boxInScene) {
+        try {
+            consumer.accept(window, boxInScene);
+        } finally {
+            window.release();
+        }
+    }
+
+    private List<Rect> proposeContourWindows(Mat scene) {
+        Mat gray = new Mat();
+        Mat edges = new Mat();
+        Mat hierarchy = new Mat();
+        List<MatOfPoint> contours = new ArrayList<>();
+        try {
+            Imgproc.cvtColor(scene, gray, Imgproc.COLOR_RGBA2GRAY);
+            Imgproc.Canny(gray, edges, 100, 200);
+            Imgproc.findContours(edges, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        } finally {
+            gray.release();
+            edges.release();
+            hierarchy.release();
+        }
+
+        List<Rect> windows = new ArrayList<>();
+        int minSize = windowSize / 2;
+        for (MatOfPoint contour : contours) {
+            Rect box = Imgproc.boundingRect(contour);
+            contour.release();
+            if (box.width < minSize || box.height < minSize) {
+                continue;
+            }
+            // Pad the box, so the whole outline of the sign is inside the window
+            int padding = Math.max(box.width, box.height) / 10;
+            windows.add(clip(new Rect(box.x - padding, box.y - padding, box.width + 2 * padding, box.height + 2 * padding), scene));
+        }
+        return windows;
+    }
+
+    private float[] toFeatures(Mat window) {
+        Mat croppedWindow;
+        try {
+            croppedWindow = new ImageCropper().cropSign(window);
+        } catch (IllegalStateException e) {
+            return null; // no contour in the window, so there is no sign either
+        }
+        try {
+            return dataSetBuilder.toFeatureVector(croppedWindow);
+        } finally {
+            if (croppedWindow != window) {
+                croppedWindow.release();
+            }
+        }
+    }
+
+    private void classify(List<Candidate> batch, List<List<Detection>> candidates) {
+        float[][] features = new float[batch.size()][];
+        for (int i = 0; i < batch.size(); i++) {
+            features[i] = batch.get(i).features();
+        }
+        DataSet data = new DataSet(Nd4j.create(features), Nd4j.zeros(batch.size(), SignClassification.values().length));
+        INDArray probabilities = model.output(modelBuilder.prepareTrainingData(model, data).getFeatures(), false);
+
+        for (int i = 0; i < batch.size(); i++) {
+            int classIndex = probabilities.getRow(i).argMax().getInt(0);
+            double confidence = probabilities.getDouble(i, classIndex);
+            if (confidence >= minConfidence) {
+                Candidate candidate = batch.get(i);
+                candidates.get(candidate.sceneIndex()).add(
+                        new Detection(candidate.window(), SignClassification.values()[classIndex], confidence));
+            }
+        }
+    }
+
+    private List<Detection> suppressOverlaps(List<Detection> candidates) {
+        List<Detection> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingDouble(Detection::confidence).reversed());
+        List<Detection> kept = new ArrayList<>();
+        for (Detection candidate : sorted) {
+            boolean suppressed = kept.stream().anyMatch(detection -> detection.classification() == candidate.classification()
+                    && detection.intersectionOverUnion(candidate) > overlapThreshold);
+            if (!suppressed) {
+                kept.add(candidate);
+            }
+        }
+        return kept;
+    }
+
+    private void validate() {
+        if (windowSize <= 0 || strideFraction <= 0 || batchSize <= 0) {
+            throw new IllegalStateException("Window size, stride and batch size must be positive.");
+        }
+        if (scaleFactor <= 1) {
+            throw new IllegalStateException("The scale factor must be greater than 1. Use withScaleFactor() to set it.");
+        }
+    }
+
+    private static Rect clip(Rect rect, Mat scene) {
+        int x = Math.max(0, rect.x);
+        int y = Math.max(0, rect.y);
+        int width = Math.min(scene.cols(), rect.x + rect.width) - x;
+        int height = Math.min(scene.rows(), rect.y + rect.height) - y;
+        return new Rect(x, y, width, height);
+    }
+
+    private record Candidate(int sceneIndex, Rect window, float[] features) {
+    }
+}
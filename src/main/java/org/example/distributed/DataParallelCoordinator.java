@@ -0,0 +1,225 @@
+package org.example.distributed;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.example.Main;
+import org.example.deep_learing_network.ModelBuilder;
+import org.example.deep_learing_network.ParameterAveraging;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trains a model with data parallelism across several worker JVMs on the same machine.
+ *
+ * <p>The coordinator splits the training data into one shard per worker and launches the workers as separate
+ * processes. Every worker trains a replica of the model on its shard. After every {@code averagingFrequency}
+ * iterations, the parameters and the Adam updater state of all replicas are averaged, weighted by the shard sizes, and
+ * sent back to the workers. The workers connect to the coordinator over a loopback socket, see
+ * {@link DataParallelProtocol}.</p>
+ */
+public class DataParallelCoordinator {
+    private static final int ACCEPT_TIMEOUT_MILLIS = 120_000;
+
+    private final ModelBuilder modelBuilder;
+    private final int workers;
+    private int averagingFrequency = 5;
+    private long seed = 1;
+
+    /**
+     * @param modelBuilder The fully configured builder of the trained model. Its number of epochs is the number of
+     *                     iterations every worker trains in total.
+     * @param workers      The number of worker processes.
+     */
+    public DataParallelCoordinator(ModelBuilder modelBuilder, int workers) {
+        this.modelBuilder = modelBuilder;
+        this.workers = workers;
+    }
+
+    /**
+     * Sets the number of iterations every worker trains between two averaging steps. Defaults to 5.
+     *
+     * @param averagingFrequency The number of iterations per round.
+     * @return The current instance of {@link DataParallelCoordinator} for chaining.
+     */
+    public DataParallelCoordinator withAveragingFrequency(int averagingFrequency) {
+        this.averagingFrequency = averagingFrequency;
+        return this;
+    }
+
+    /**
+     * Sets the seed used to distribute the examples to the shards. Defaults to 1.
+     *
+     * @param seed The seed of the shard assignment.
+     * @return The current instance of {@link DataParallelCoordinator} for chaining.
+     */
+    public DataParallelCoordinator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Launches the workers, trains the model and returns it with the averaged parameters of the last round.
+     *
+     * @param trainingData The dataset used to train the model.
+     * @return The trained model.
+     * @throws IllegalStateException if the number of workers or the averaging frequency is not positive.
+     */
+    public MultiLayerNetwork train(DataSet trainingData) {
+        if (workers <= 0) {
+            throw new IllegalStateException("The number of workers must be positive.");
+        }
+        if (averagingFrequency <= 0) {
+            throw new IllegalStateException("Averaging frequency must be positive. Use withAveragingFrequency() to set it.");
+        }
+        MultiLayerNetwork model = modelBuilder.build();
+        List<DataSet> shards = split(modelBuilder.prepareTrainingData(model, trainingData));
+        List<Integer> shardSizes = shards.stream().map(DataSet::numExamples).toList();
+        // The last round trains only the remaining iterations, so the total matches a single-process training
+        int rounds = (int) Math.ceil(modelBuilder.getNumEpochs() / (double) averagingFrequency);
+
+        List<Process> processes = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>(Collections.nCopies(workers, null));
+        long start = System.nanoTime();
+        try (ServerSocket serverSocket = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+            for (int i = 0; i < workers; i++) {
+                processes.add(launchWorker(serverSocket.getLocalPort(), i));
+            }
+
+            List<DataInputStream> inputs = new ArrayList<>(Collections.nCopies(workers, null));
+            List<DataOutputStream> outputs = new ArrayList<>(Collections.nCopies(workers, null));
+            for (int i = 0; i < workers; i++) {
+                Socket socket = serverSocket.accept();
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                int index = input.readInt();
+                sockets.set(index, socket);
+                inputs.set(index, input);
+                outputs.set(index, new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+            }
+
+            byte[] serializedModel = serialize(model);
+            for (int i = 0; i < workers; i++) {
+                DataParallelProtocol.writeBytes(outputs.get(i), serializedModel);
+                DataParallelProtocol.writeBytes(outputs.get(i), serialize(shards.get(i)));
+                outputs.get(i).writeInt(averagingFrequency);
+                outputs.get(i).writeInt(modelBuilder.getNumEpochs());
+                outputs.get(i).flush();
+            }
+
+            for (int round = 0; round < rounds; round++) {
+                List<INDArray> parameters = new ArrayList<>();
+                List<INDArray> updaterStates = new ArrayList<>();
+                for (DataInputStream input : inputs) {
+                    parameters.add(DataParallelProtocol.readArray(input));
+                    updaterStates.add(DataParallelProtocol.readArray(input));
+                }
+                INDArray averagedParameters = ParameterAveraging.weightedAverage(parameters, shardSizes);
+                INDArray averagedUpdaterState = ParameterAveraging.weightedAverage(updaterStates, shardSizes);
+                ParameterAveraging.apply(model, averagedParameters, averagedUpdaterState);
+
+                boolean lastRound = round == rounds - 1;
+                for (DataOutputStream output : outputs) {
+                    output.writeInt(lastRound ? DataParallelProtocol.FINISH : DataParallelProtocol.AVERAGED);
+                    if (!lastRound) {
+                        DataParallelProtocol.writeArray(output, averagedParameters);
+                        DataParallelProtocol.writeArray(output, averagedUpdaterState);
+                    }
+                    output.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Data-parallel training failed", e);
+        } finally {
+            for (Socket socket : sockets) {
+                closeQuietly(socket);
+            }
+            for (Process process : processes) {
+                awaitOrDestroy(process);
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.println("Trained " + modelBuilder.getNumEpochs() + " iterations on " + workers + " workers in "
+                + String.format("%.1f", seconds) + " s, averaging every " + averagingFrequency + " iterations");
+        return modelBuilder.toInferenceModel(model);
+    }
+
+    private List<DataSet> split(DataSet data) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < data.numExamples(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(seed));
+
+        List<DataSet> shards = new ArrayList<>();
+        for (int worker = 0; worker < workers; worker++) {
+            int from = (int) ((long) order.size() * worker / workers);
+            int to = (int) ((long) order.size() * (worker + 1) / workers);
+            if (from == to) {
+                throw new IllegalStateException("There are fewer training examples than workers.");
+            }
+            shards.add(data.get(order.subList(from, to).stream().mapToInt(Integer::intValue).toArray()));
+        }
+        return shards;
+    }
+
+    private Process launchWorker(int port, int index) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        ProcessBuilder processBuilder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                Main.class.getName(), "train-worker", String.valueOf(port), String.valueOf(index));
+        // Share the cores between the workers instead of letting every worker start one BLAS thread per core
+        int threadsPerWorker = Math.max(1, Runtime.getRuntime().availableProcessors() / workers);
+        processBuilder.environment().put("OMP_NUM_THREADS", String.valueOf(threadsPerWorker));
+        processBuilder.inheritIO();
+        return processBuilder.start();
+    }
+
+    private static byte[] serialize(MultiLayerNetwork model) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ModelSerializer.writeModel(model, bytes, true);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] serialize(DataSet dataSet) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        dataSet.save(bytes);
+        return bytes.toByteArray();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // the worker is stopped afterwards anyway
+        }
+    }
+
+    private static void awaitOrDestroy(Process process) {
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
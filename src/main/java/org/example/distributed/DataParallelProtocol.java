@@ -0,0 +1,43 @@
+package org.example.distributed;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The messages exchanged between the {@link DataParallelCoordinator} and its {@link DataParallelWorker}s.
+ *
+ * <p>After connecting, a worker sends its index. The coordinator answers with the serialized model, the serialized
+ * training shard, the number of iterations per round and the total number of iterations, so the last round may be
+ * shorter than the others. After every round, the worker sends its parameters and updater state and receives the
+ * averaged ones in return. After the last round, the coordinator sends {@link #FINISH} instead of the averages.</p>
+ */
+final class DataParallelProtocol {
+    static final int AVERAGED = 1;
+    static final int FINISH = 2;
+
+    private DataParallelProtocol() {
+    }
+
+    static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    static void writeArray(DataOutputStream output, INDArray array) throws IOException {
+        Nd4j.write(array, output);
+    }
+
+    static INDArray readArray(DataInputStream input) throws IOException {
+        return Nd4j.read(input);
+    }
+}
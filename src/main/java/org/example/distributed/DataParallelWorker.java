@@ -0,0 +1,71 @@
+package org.example.distributed;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.example.deep_learing_network.ParameterAveraging;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * A worker process of the data-parallel training. It trains a replica of the model on its shard of the training data
+ * and synchronizes with the {@link DataParallelCoordinator} after every round.
+ */
+public class DataParallelWorker {
+    private final int port;
+    private final int index;
+
+    /**
+     * @param port  The port the coordinator listens on, on the loopback interface.
+     * @param index The index of this worker.
+     */
+    public DataParallelWorker(int port, int index) {
+        this.port = port;
+        this.index = index;
+    }
+
+    /**
+     * Connects to the coordinator and trains until the coordinator finishes the training.
+     */
+    public void run() {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            output.writeInt(index);
+            output.flush();
+
+            MultiLayerNetwork model = ModelSerializer.restoreMultiLayerNetwork(
+                    new ByteArrayInputStream(DataParallelProtocol.readBytes(input)), true);
+            DataSet shard = new DataSet();
+            shard.load(new ByteArrayInputStream(DataParallelProtocol.readBytes(input)));
+            int iterationsPerRound = input.readInt();
+            int totalIterations = input.readInt();
+            int rounds = (int) Math.ceil(totalIterations / (double) iterationsPerRound);
+            System.out.println("Worker " + index + " trains on " + shard.numExamples() + " examples for " + rounds + " rounds");
+
+            for (int round = 0; round < rounds; round++) {
+                int iterations = Math.min(iterationsPerRound, totalIterations - round * iterationsPerRound);
+                for (int i = 0; i < iterations; i++) {
+                    model.fit(shard);
+                }
+                DataParallelProtocol.writeArray(output, model.params());
+                DataParallelProtocol.writeArray(output, ParameterAveraging.updaterState(model));
+                output.flush();
+
+                if (input.readInt() == DataParallelProtocol.FINISH) {
+                    break;
+                }
+                ParameterAveraging.apply(model, DataParallelProtocol.readArray(input), DataParallelProtocol.readArray(input));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Worker " + index + " lost the connection to the coordinator on port " + port, e);
+        }
+    }
+}
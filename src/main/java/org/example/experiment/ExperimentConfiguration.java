@@ -0,0 +1,21 @@
+package org.example.experiment;
+
+import org.example.deep_learing_network.HiddenLayerSpec;
+
+import java.util.List;
+
+/**
+ * A single model configuration of an {@link ExperimentSpec}.
+ *
+ * @param name         The name identifying the configuration in the journal.
+ * @param hiddenLayers The hidden layer configuration.
+ * @param learningRate The learning rate, the one of the spec is used if not set.
+ * @param epochs       The number of epochs, the one of the spec is used if not set.
+ * @param sigmoidK     If set, the hidden layers use a {@code ParametricSigmoid} with this parameter.
+ */
+public record ExperimentConfiguration(String name,
+                                      List<HiddenLayerSpec> hiddenLayers,
+                                      double learningRate,
+                                      int epochs,
+                                      Double sigmoidK) {
+}
@@ -0,0 +1,229 @@
+package org.example.experiment;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.example.SignClassification;
+import org.example.deep_learing_network.Evaluator;
+import org.example.deep_learing_network.HiddenLayerSpec;
+import org.example.deep_learing_network.ModelBuilder;
+import org.example.deep_learing_network.ModelBuilderWithParametricSigmoid;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trains and evaluates the configurations of an {@link ExperimentSpec} one after another and appends the result of
+ * every finished configuration to a journal with one line of JSON per configuration.
+ *
+ * <p>Configurations already in the journal are skipped, so a sweep that was interrupted continues with the
+ * configuration that was in progress. The model is saved before its journal line is written and the journal is
+ * flushed to disk after every line, so a crash only loses the configuration in progress. A line that was only partly
+ * written by a crash is ignored and its configuration is trained again.</p>
+ */
+public class ExperimentRunner {
+    private final Gson gson = new Gson();
+    private final Path journalFile;
+
+    /**
+     * @param journalFile The journal, created if it does not exist yet.
+     */
+    public ExperimentRunner(Path journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Runs all configurations of the spec that are not in the journal yet and prints the results of all
+     * configurations, best accuracy first.
+     *
+     * @param specFile The spec as JSON.
+     * @return The journal entries of all configurations of the spec.
+     * @throws IllegalArgumentException if the spec is incomplete or the names of its configurations are not unique.
+     */
+    public List<JournalEntry> run(Path specFile) {
+        ExperimentSpec spec = readSpec(specFile);
+        Path baseDirectory = specFile.toAbsolutePath().getParent();
+
+        Map<String, JournalEntry> finished = readJournal();
+        List<ExperimentConfiguration> pending = spec.configurations().stream()
+                .filter(configuration -> !finished.containsKey(configuration.name()))
+                .toList();
+        System.out.println((spec.configurations().size() - pending.size()) + " of " + spec.configurations().size()
+                + " configurations already in " + journalFile + ", " + pending.size() + " to run");
+
+        if (!pending.isEmpty()) {
+            DataSet trainingData = loadDataSet(baseDirectory.resolve(spec.trainingDataFile()));
+            DataSet testingData = loadDataSet(baseDirectory.resolve(spec.testingDataFile()));
+            Path checkpointDirectory = baseDirectory.resolve(spec.checkpointDirectory());
+            try {
+                Files.createDirectories(checkpointDirectory);
+            } catch (IOException e) {
+                throw new RuntimeException("Error creating the checkpoint directory " + checkpointDirectory, e);
+            }
+
+            for (ExperimentConfiguration configuration : pending) {
+                System.out.println("Running configuration: " + configuration.name());
+                JournalEntry entry = run(spec, configuration, trainingData, testingData, checkpointDirectory);
+                append(entry);
+                finished.put(entry.name(), entry);
+            }
+        }
+
+        List<JournalEntry> results = spec.configurations().stream().map(configuration -> finished.get(configuration.name())).toList();
+        printResults(results);
+        return results;
+    }
+
+    private JournalEntry run(ExperimentSpec spec, ExperimentConfiguration configuration, DataSet trainingData,
+                             DataSet testingData, Path checkpointDirectory) {
+        ModelBuilder modelBuilder = createModelBuilder(spec, configuration, trainingData.getFeatures().columns());
+
+        long start = System.nanoTime();
+        MultiLayerNetwork model = modelBuilder.buildAndTrain(trainingData);
+        double trainingMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        start = System.nanoTime();
+        Evaluation evaluation = new Evaluator(model, testingData).getEvaluationResult();
+        double evaluationMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        Path checkpoint = checkpointDirectory.resolve(configuration.name().replaceAll("[^A-Za-z0-9._-]", "_") + ".zip");
+        try {
+            ModelSerializer.writeModel(model, checkpoint.toFile(), true);
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving the model to " + checkpoint, e);
+        }
+
+        return new JournalEntry(configuration.name(), evaluation.accuracy(), evaluation.precision(), evaluation.recall(),
+                evaluation.f1(), model.numParams(), trainingMillis, evaluationMillis, checkpoint.toAbsolutePath().toString(),
+                Instant.now().toString());
+    }
+
+    private static ModelBuilder createModelBuilder(ExperimentSpec spec, ExperimentConfiguration configuration, long inputSize) {
+        ModelBuilder modelBuilder = new ModelBuilder()
+                .withInputSize((int) inputSize)
+                .withOutputSize(SignClassification.values().length)
+                .withOutputLayerActivation(Activation.SOFTMAX)
+                .withHiddenLayerConfig(HiddenLayerSpec.toHiddenLayerConfig(configuration.hiddenLayers()));
+        double learningRate = configuration.learningRate() > 0 ? configuration.learningRate() : spec.learningRate();
+        if (learningRate > 0) {
+            modelBuilder.withLearningRate(learningRate);
+        }
+        int epochs = configuration.epochs() > 0 ? configuration.epochs() : spec.epochs();
+        if (epochs > 0) {
+            modelBuilder.withNumEpochs(epochs);
+        }
+        if (spec.seed() != null) {
+            modelBuilder.withSeed(spec.seed());
+        }
+        if (configuration.sigmoidK() != null) {
+            modelBuilder = ModelBuilderWithParametricSigmoid.createFromDefaultModelBuilder(modelBuilder).withAlpha(configuration.sigmoidK());
+        }
+        return modelBuilder;
+    }
+
+    private ExperimentSpec readSpec(Path specFile) {
+        ExperimentSpec spec;
+        try {
+            spec = gson.fromJson(Files.readString(specFile, StandardCharsets.UTF_8), ExperimentSpec.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading the experiment spec " + specFile, e);
+        }
+        if (spec == null || spec.trainingDataFile() == null || spec.testingDataFile() == null
+                || spec.checkpointDirectory() == null || spec.configurations() == null) {
+            throw new IllegalArgumentException("The spec must set trainingDataFile, testingDataFile, checkpointDirectory and configurations");
+        }
+        Set<String> names = new HashSet<>();
+        for (ExperimentConfiguration configuration : spec.configurations()) {
+            if (configuration.name() == null || !names.add(configuration.name())) {
+                throw new IllegalArgumentException("Every configuration needs a unique name: " + configuration.name());
+            }
+            if (configuration.hiddenLayers() == null || configuration.hiddenLayers().isEmpty()) {
+                throw new IllegalArgumentException("Configuration " + configuration.name() + " has no hiddenLayers");
+            }
+        }
+        return spec;
+    }
+
+    private Map<String, JournalEntry> readJournal() {
+        Map<String, JournalEntry> entries = new LinkedHashMap<>();
+        if (!Files.exists(journalFile)) {
+            return entries;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading the journal " + journalFile, e);
+        }
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JournalEntry entry = gson.fromJson(line, JournalEntry.class);
+                if (entry != null && entry.name() != null) {
+                    entries.put(entry.name(), entry);
+                }
+            } catch (JsonParseException e) {
+                System.out.println("Ignoring incomplete journal line: " + line);
+            }
+        }
+        return entries;
+    }
+
+    private void append(JournalEntry entry) {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            String line = gson.toJson(entry) + "\n";
+            if (channel.size() > 0 && !endsWithNewline(channel)) {
+                line = "\n" + line; // Terminates a line that was only partly written by a crash
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            channel.position(channel.size());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing to the journal " + journalFile, e);
+        }
+    }
+
+    private static boolean endsWithNewline(FileChannel channel) throws IOException {
+        ByteBuffer lastByte = ByteBuffer.allocate(1);
+        channel.read(lastByte, channel.size() - 1);
+        return lastByte.get(0) == '\n';
+    }
+
+    private static DataSet loadDataSet(Path file) {
+        DataSet dataSet = new DataSet();
+        dataSet.load(file.toFile());
+        return dataSet;
+    }
+
+    private static void printResults(List<JournalEntry> results) {
+        List<JournalEntry> ranking = new ArrayList<>(results);
+        ranking.sort(Comparator.comparingDouble(JournalEntry::accuracy).reversed());
+        System.out.println("---------------------------------Experiment Results---------------------------------");
+        System.out.println(String.format("%-30s %10s %10s %14s", "Configuration", "Accuracy", "F1 Score", "Training (s)"));
+        ranking.forEach(entry -> System.out.println(String.format("%-30s %10.4f %10.4f %14.1f", entry.name(),
+                entry.accuracy(), entry.f1(), entry.trainingMillis() / 1000)));
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.experiment;
+
+import java.util.List;
+
+/**
+ * A sweep of model configurations read from a JSON file by the {@link ExperimentRunner}. Relative paths are resolved
+ * against the directory of the spec file.
+ *
+ * @param trainingDataFile    The training set, as saved by {@code Main}.
+ * @param testingDataFile     The testing set, as saved by {@code Main}.
+ * @param checkpointDirectory The directory the trained model of every configuration is saved to.
+ * @param learningRate        The learning rate of configurations that do not set their own, the default of the
+ *                            {@code ModelBuilder} is used if not set.
+ * @param epochs              The number of epochs of configurations that do not set their own, the default of the
+ *                            {@code ModelBuilder} is used if not set.
+ * @param seed                The random seed of all models, the default of the {@code ModelBuilder} is used if not set.
+ * @param configurations      The configurations to train, in order. Their names must be unique.
+ */
+public record ExperimentSpec(String trainingDataFile,
+                             String testingDataFile,
+                             String checkpointDirectory,
+                             double learningRate,
+                             int epochs,
+                             Long seed,
+                             List<ExperimentConfiguration> configurations) {
+}
@@ -0,0 +1,27 @@
+package org.example.experiment;
+
+/**
+ * The result of a finished configuration, stored as one line of JSON in the journal of the {@link ExperimentRunner}.
+ *
+ * @param name             The name of the configuration.
+ * @param accuracy         The accuracy on the testing set.
+ * @param precision        The precision on the testing set.
+ * @param recall           The recall on the testing set.
+ * @param f1               The F1 score on the testing set.
+ * @param parameters       The number of parameters of the model.
+ * @param trainingMillis   The time spent on training in milliseconds.
+ * @param evaluationMillis The time spent on evaluation in milliseconds.
+ * @param checkpoint       The absolute path of the saved model.
+ * @param finishedAt       The time the configuration finished, in ISO-8601 format.
+ */
+public record JournalEntry(String name,
+                           double accuracy,
+                           double precision,
+                           double recall,
+                           double f1,
+                           long parameters,
+                           double trainingMillis,
+                           double evaluationMillis,
+                           String checkpoint,
+                           String finishedAt) {
+}
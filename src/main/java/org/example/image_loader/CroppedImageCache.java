@@ -0,0 +1,131 @@
+package org.example.image_loader;
+
+import org.opencv.core.Mat;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache of cropped RGBA images, keyed by the path of the image and the configuration of the cropper,
+ * with a budget of native memory.
+ *
+ * <p>Decoding and cropping an image is far more expensive than scaling it, so repeated dataset builds with other
+ * dimensions or channels in the same process reuse the cropped images. When the cached images exceed the budget, the
+ * least recently used images are evicted and their native memory is released.</p>
+ */
+public class CroppedImageCache {
+    private final long maxBytes;
+    private final LinkedHashMap<String, Mat> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxBytes The maximum native memory of all cached images in bytes.
+     */
+    public CroppedImageCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The memory budget must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cropped image from the cache, or crops and caches it on a miss. Images larger than the whole budget
+     * are returned without being cached.
+     *
+     * @param image         The image to crop.
+     * @param configuration Describes the configuration of the cropper, images cropped differently are cached apart.
+     * @param cropper       Loads and crops the image on a miss.
+     * @return A copy of the cropped image, owned by the caller.
+     */
+    public Mat getOrCrop(LoadableImage image, String configuration, Function<LoadableImage, Mat> cropper) {
+        String key = image.path() + "|" + configuration;
+        synchronized (this) {
+            Mat cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached.clone();
+            }
+            misses++;
+        }
+
+        // Cropping happens outside the lock, so other threads are not blocked by a slow decode
+        Mat cropped = cropper.apply(image);
+        long bytes = sizeInBytes(cropped);
+        if (bytes > maxBytes) {
+            return cropped;
+        }
+
+        Mat cachedCopy = cropped.clone();
+        synchronized (this) {
+            Mat previous = entries.put(key, cachedCopy);
+            if (previous != null) {
+                // Another thread cropped the same image in the meantime
+                currentBytes -= sizeInBytes(previous);
+                previous.release();
+            }
+            currentBytes += bytes;
+            evictLeastRecentlyUsed();
+        }
+        return cropped;
+    }
+
+    /**
+     * Removes all images from the cache and releases their native memory. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.values().forEach(Mat::release);
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * @return The current hit, miss and eviction counters and the memory used by the cached images.
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(hits, misses, evictions, entries.size(), currentBytes, maxBytes);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<String, Mat>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Mat evicted = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= sizeInBytes(evicted);
+            evicted.release();
+            evictions++;
+        }
+    }
+
+    private static long sizeInBytes(Mat image) {
+        return image.total() * image.elemSize();
+    }
+
+    /**
+     * The counters of a {@link CroppedImageCache}.
+     *
+     * @param hits      The number of lookups that found the image in the cache.
+     * @param misses    The number of lookups that had to crop the image.
+     * @param evictions The number of images evicted to stay within the budget.
+     * @param entries   The number of cached images.
+     * @param bytes     The native memory used by the cached images.
+     * @param maxBytes  The memory budget.
+     */
+    public record Statistics(long hits, long misses, long evictions, int entries, long bytes, long maxBytes) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : hits / (double) lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hits, %d misses (hit rate %.1f%%), %d evictions, %d images using %.1f of %.1f MiB",
+                    hits, misses, hitRate() * 100, evictions, entries, bytes / (1024.0 * 1024.0), maxBytes / (1024.0 * 1024.0));
+        }
+    }
+}
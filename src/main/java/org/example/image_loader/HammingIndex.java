@@ -0,0 +1,86 @@
+package org.example.image_loader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A BK-tree over 64 bit hashes, used to find all hashes within a small Hamming distance without comparing every pair.
+ *
+ * <p>Every child of a node is stored under its distance to the node. By the triangle inequality, a search for hashes
+ * within distance {@code d} of a query only has to descend into the children whose distance lies in
+ * {@code [distance(query, node) - d, distance(query, node) + d]}.</p>
+ */
+class HammingIndex {
+    private Node root;
+
+    /**
+     * Adds a hash to the index.
+     *
+     * @param hash The hash.
+     * @param id   The id returned by {@link #search(long, int)} for this hash.
+     */
+    void add(long hash, int id) {
+        if (root == null) {
+            root = new Node(hash, id);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(hash, node.hash);
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(hash, id));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds the ids of all hashes within a maximum Hamming distance of a query hash.
+     *
+     * @param hash        The query hash.
+     * @param maxDistance The maximum number of differing bits.
+     * @return The ids of all matching hashes, including the query itself if it was added.
+     */
+    List<Integer> search(long hash, int maxDistance) {
+        List<Integer> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(hash, node.hash);
+            if (distance <= maxDistance) {
+                matches.add(node.id);
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        return matches;
+    }
+
+    static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static final class Node {
+        private final long hash;
+        private final int id;
+        private final Map<Integer, Node> children = new HashMap<>();
+
+        private Node(long hash, int id) {
+            this.hash = hash;
+            this.id = id;
+        }
+    }
+}
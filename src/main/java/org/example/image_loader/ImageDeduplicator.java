@@ -0,0 +1,230 @@
+package org.example.image_loader;
+
+import org.example.SignClassification;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Groups near-identical images, such as consecutive dash-cam frames of the same sign, into clusters.
+ *
+ * <p>Every image gets a 64 bit difference hash (dHash): the image is reduced to 9x8 grayscale pixels and every bit
+ * tells whether a pixel is brighter than its right neighbour. Images whose hashes differ in at most
+ * {@code maxDistance} bits are near-duplicates. Near-duplicates are found with a {@link HammingIndex} and merged
+ * transitively into clusters. Computed hashes are kept in a cache file, so only new or changed images are decoded
+ * again. Loose image files are versioned by their modification time, packed images by the modification time of the
+ * pack and their offset in it, so packed images need no file system access of their own.</p>
+ */
+public class ImageDeduplicator {
+    private static final int HASH_COLS = 9;
+    private static final int HASH_ROWS = 8;
+
+    private int maxDistance = 6;
+    private Path hashCacheFile;
+
+    /**
+     * Sets the maximum number of differing hash bits of two near-duplicates. Defaults to 6.
+     *
+     * @param maxDistance The maximum Hamming distance.
+     * @return The current instance of {@link ImageDeduplicator} for chaining.
+     */
+    public ImageDeduplicator withMaxDistance(int maxDistance) {
+        this.maxDistance = maxDistance;
+        return this;
+    }
+
+    /**
+     * Sets the file the hashes are cached in. Without a cache file, all hashes are computed on every run.
+     *
+     * @param hashCacheFile The cache file, created if it does not exist.
+     * @return The current instance of {@link ImageDeduplicator} for chaining.
+     */
+    public ImageDeduplicator withHashCache(Path hashCacheFile) {
+        this.hashCacheFile = hashCacheFile;
+        return this;
+    }
+
+    /**
+     * Clusters the images by their perceptual hash. The first image of every cluster is its representative.
+     * Images of different classifications are never clustered together, so no label is dropped with a near-duplicate.
+     * Clusters and the images in them are ordered by classification and path, so the result does not depend on the
+     * order of the input.
+     *
+     * @param images The images to cluster.
+     * @return The clusters, each with at least one image.
+     */
+    public List<List<LoadableImage>> cluster(List<LoadableImage> images) {
+        List<LoadableImage> sortedImages = new ArrayList<>(images);
+        sortedImages.sort(Comparator.comparing(LoadableImage::path));
+        long[] allHashes = computeHashes(sortedImages);
+
+        Map<SignClassification, List<Integer>> indicesByClassification = new TreeMap<>(
+                Comparator.nullsFirst(Comparator.<SignClassification>naturalOrder()));
+        for (int i = 0; i < sortedImages.size(); i++) {
+            indicesByClassification.computeIfAbsent(sortedImages.get(i).classification(), classification -> new ArrayList<>()).add(i);
+        }
+        List<List<LoadableImage>> clusters = new ArrayList<>();
+        for (List<Integer> indices : indicesByClassification.values()) {
+            List<LoadableImage> classImages = indices.stream().map(sortedImages::get).toList();
+            long[] hashes = indices.stream().mapToLong(i -> allHashes[i]).toArray();
+            clusters.addAll(cluster(classImages, hashes));
+        }
+        System.out.println("Found " + clusters.size() + " distinct images among " + images.size() + " images");
+        return clusters;
+    }
+
+    /**
+     * Clusters images of a single classification, ordered by path, with their hashes.
+     */
+    private List<List<LoadableImage>> cluster(List<LoadableImage> sortedImages, long[] hashes) {
+        HammingIndex index = new HammingIndex();
+        int[] parents = new int[sortedImages.size()];
+        for (int i = 0; i < sortedImages.size(); i++) {
+            parents[i] = i;
+            for (int match : index.search(hashes[i], maxDistance)) {
+                union(parents, i, match);
+            }
+            index.add(hashes[i], i);
+        }
+
+        Map<Integer, List<LoadableImage>> clusters = new LinkedHashMap<>();
+        for (int i = 0; i < sortedImages.size(); i++) {
+            clusters.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(sortedImages.get(i));
+        }
+        return new ArrayList<>(clusters.values());
+    }
+
+    /**
+     * Computes the difference hash of a single image.
+     *
+     * @param image The image to hash.
+     * @return The 64 bit hash.
+     */
+    public static long hash(LoadableImage image) {
+        Mat material = image.loadMaterial();
+        Mat gray = new Mat();
+        Mat small = new Mat();
+        try {
+            Imgproc.cvtColor(material, gray, Imgproc.COLOR_RGBA2GRAY);
+            Imgproc.resize(gray, small, new Size(HASH_COLS, HASH_ROWS), 0, 0, Imgproc.INTER_AREA);
+            byte[] pixels = new byte[HASH_COLS * HASH_ROWS];
+            small.get(0, 0, pixels);
+
+            long hash = 0;
+            for (int row = 0; row < HASH_ROWS; row++) {
+                for (int col = 0; col < HASH_COLS - 1; col++) {
+                    int left = pixels[row * HASH_COLS + col] & 0xFF;
+                    int right = pixels[row * HASH_COLS + col + 1] & 0xFF;
+                    hash = (hash << 1) | (left > right ? 1 : 0);
+                }
+            }
+            return hash;
+        } finally {
+            material.release();
+            gray.release();
+            small.release();
+        }
+    }
+
+    private long[] computeHashes(List<LoadableImage> images) {
+        Map<String, CachedHash> cache = readCache();
+        Map<String, CachedHash> updatedCache = new LinkedHashMap<>();
+        long[] hashes = new long[images.size()];
+        int computed = 0;
+        for (int i = 0; i < images.size(); i++) {
+            LoadableImage image = images.get(i);
+            String version = version(image);
+            CachedHash cached = cache.get(image.path());
+            if (cached == null || !cached.version().equals(version)) {
+                cached = new CachedHash(hash(image), version);
+                computed++;
+            }
+            hashes[i] = cached.hash();
+            updatedCache.put(image.path(), cached);
+        }
+        if (computed > 0) {
+            System.out.println("Computed " + computed + " perceptual hashes, " + (images.size() - computed) + " were cached");
+            writeCache(updatedCache);
+        }
+        return hashes;
+    }
+
+    private Map<String, CachedHash> readCache() {
+        Map<String, CachedHash> cache = new HashMap<>();
+        if (hashCacheFile == null || !Files.exists(hashCacheFile)) {
+            return cache;
+        }
+        try {
+            for (String line : Files.readAllLines(hashCacheFile, StandardCharsets.UTF_8)) {
+                // Format: hash <tab> version <tab> path, the path comes last because it may contain tabs
+                String[] parts = line.split("\t", 3);
+                if (parts.length == 3) {
+                    cache.put(parts[2], new CachedHash(Long.parseUnsignedLong(parts[0], 16), parts[1]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Ignoring the unreadable hash cache " + hashCacheFile + ": " + e.getMessage());
+            cache.clear();
+        }
+        return cache;
+    }
+
+    private void writeCache(Map<String, CachedHash> cache) {
+        if (hashCacheFile == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        cache.forEach((path, cached) -> lines.add(Long.toHexString(cached.hash()) + "\t" + cached.version() + "\t" + path));
+        try {
+            Files.write(hashCacheFile, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the hash cache " + hashCacheFile, e);
+        }
+    }
+
+    /**
+     * @return The modification time of a loose image file, or the modification time of its pack and its offset in it.
+     */
+    private static String version(LoadableImage image) {
+        ImagePack.Entry packEntry = image.packEntry();
+        if (packEntry != null) {
+            return "pack:" + packEntry.pack().getLastModified() + ":" + packEntry.offset();
+        }
+        return String.valueOf(new File(image.path()).lastModified());
+    }
+
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parents, int a, int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        // The smaller index becomes the root, so the representative is the first image of the cluster by path
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        } else {
+            parents[rootA] = rootB;
+        }
+    }
+
+    private record CachedHash(long hash, String version) {
+    }
+}
@@ -12,12 +12,58 @@ public class ImageLoader {
     private final int imagesForTraining;
     private final int imagesForTesting;
 
+    private ImagePack imagePack;
+    private File corpusDirectory;
+    private ImageDeduplicator deduplicator;
+    private boolean representativesOnly;
+
     public ImageLoader(int imagesForTraining, int imagesForTesting) {
         this.imagesForTraining = imagesForTraining;
         this.imagesForTesting = imagesForTesting;
     }
 
+    /**
+     * Loads the images from a pack file instead of the corpus directory configured in file_paths/images.txt.
+     *
+     * @param imagePack The opened pack file, see {@link ImagePackWriter}.
+     * @return The current instance of {@link ImageLoader} for chaining.
+     */
+    public ImageLoader withImagePack(ImagePack imagePack) {
+        this.imagePack = imagePack;
+        return this;
+    }
+
+    /**
+     * Loads the images from the given corpus directory instead of the one configured in file_paths/images.txt.
+     *
+     * @param corpusDirectory The corpus directory, which contains one child directory per classification.
+     * @return The current instance of {@link ImageLoader} for chaining.
+     */
+    public ImageLoader withCorpusDirectory(File corpusDirectory) {
+        this.corpusDirectory = corpusDirectory;
+        return this;
+    }
+
+    /**
+     * Groups near-duplicate images into clusters before splitting them into training and testing images. Every cluster
+     * ends up completely on one side of the split, so near-duplicates cannot leak from the training into the testing
+     * images.
+     *
+     * @param deduplicator        The deduplicator used to cluster the images.
+     * @param representativesOnly If true, only the representative of every cluster is used, otherwise all images of a
+     *                            cluster are used.
+     * @return The current instance of {@link ImageLoader} for chaining.
+     */
+    public ImageLoader withDeduplication(ImageDeduplicator deduplicator, boolean representativesOnly) {
+        this.deduplicator = deduplicator;
+        this.representativesOnly = representativesOnly;
+        return this;
+    }
+
     public ImageLoaderResult loadImages() {
+        if (deduplicator != null) {
+            return loadDeduplicatedImages();
+        }
         List<LoadableImage> availableSigns = getAllSigns();
         if (availableSigns.size() < imagesForTraining + imagesForTesting) {
             throw new IllegalArgumentException("Not enough images for training and testing");
@@ -30,7 +76,59 @@ public class ImageLoader {
         return new ImageLoaderResult(imagesForTraining, imagesForTesting);
      }
 
-    private static List<LoadableImage> getAllSigns() {
+    private ImageLoaderResult loadDeduplicatedImages() {
+        List<List<LoadableImage>> clusters = new ArrayList<>(deduplicator.cluster(getAllSigns()));
+        if (representativesOnly) {
+            clusters.replaceAll(cluster -> List.of(cluster.get(0)));
+        }
+        // Ordered like the images without deduplication, which mixes the classes
+        clusters.sort((a, b) -> a.get(0).compareTo(b.get(0)));
+
+        // Training images are taken from the front and testing images from the back, whole clusters at a time.
+        // A cluster that does not fit anymore is skipped, so smaller clusters behind it can still fill the split.
+        boolean[] used = new boolean[clusters.size()];
+        List<LoadableImage> training = new ArrayList<>();
+        for (int i = 0; i < clusters.size() && training.size() < imagesForTraining; i++) {
+            if (training.size() + clusters.get(i).size() <= imagesForTraining) {
+                training.addAll(clusters.get(i));
+                used[i] = true;
+            }
+        }
+        List<LoadableImage> testing = new ArrayList<>();
+        for (int i = clusters.size() - 1; i >= 0 && testing.size() < imagesForTesting; i--) {
+            if (!used[i] && testing.size() + clusters.get(i).size() <= imagesForTesting) {
+                testing.addAll(clusters.get(i));
+                used[i] = true;
+            }
+        }
+
+        if (training.size() < imagesForTraining || testing.size() < imagesForTesting) {
+            System.out.println("Using " + training.size() + " training and " + testing.size()
+                    + " testing images, because near-duplicates are kept on one side of the split");
+        }
+        if (training.isEmpty() || testing.isEmpty()) {
+            throw new IllegalArgumentException("Not enough distinct images for training and testing");
+        }
+        return new ImageLoaderResult(training, testing);
+    }
+
+    /**
+     * Returns every image of the corpus, without splitting them into training and testing images.
+     *
+     * @return All images of the corpus or of the image pack.
+     */
+    public List<LoadableImage> loadAllImages() {
+        return getAllSigns();
+    }
+
+    private List<LoadableImage> getAllSigns() {
+        if (imagePack != null) {
+            return new ArrayList<>(imagePack.getImages());
+        }
+        if (corpusDirectory != null) {
+            return findImagesInCorpus(corpusDirectory);
+        }
+
         ClassLoader classloader = Thread.currentThread().getContextClassLoader();
         InputStream fileLocationStream = classloader.getResourceAsStream("file_paths/images.txt");
 
@@ -45,7 +143,16 @@ public class ImageLoader {
             throw new RuntimeException("Error reading file_location.txt", e);
         }
 
-        File parentDir = new File(parentFolderLocation);
+        return findImagesInCorpus(new File(parentFolderLocation));
+    }
+
+    /**
+     * Finds all loadable images in a corpus directory, which contains one child directory per {@link SignClassification}.
+     *
+     * @param parentDir The corpus directory.
+     * @return All images of the corpus, classified by the name of their directory.
+     */
+    static List<LoadableImage> findImagesInCorpus(File parentDir) {
         if (!parentDir.exists() || !parentDir.isDirectory()) {
             throw new IllegalArgumentException("There is no parent directory in " + parentDir.getAbsolutePath());
         }
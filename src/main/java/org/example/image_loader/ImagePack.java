@@ -0,0 +1,167 @@
+package org.example.image_loader;
+
+import org.example.SignClassification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only view of a pack file written by the {@link ImagePackWriter}.
+ *
+ * <p>The pack file is memory-mapped, so loading the images of a dataset reads one file sequentially instead of opening
+ * every image file on its own. The file layout (little endian) is:</p>
+ * <pre>
+ * int magic, int version, long indexOffset
+ * the encoded image files (.jpg/.bmp), one after another
+ * index: int count, per image: long offset, int length, int classification, int pathLength, byte[] path (UTF-8)
+ * </pre>
+ */
+public class ImagePack implements Closeable {
+    static final int MAGIC = 0x494D504B; // "IMPK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    /**
+     * Images larger than this are rejected by the writer, so that every image fits into one mapped segment.
+     */
+    static final int MAX_IMAGE_SIZE = 64 * 1024 * 1024;
+    private static final long SEGMENT_SIZE = 1024L * 1024 * 1024;
+
+    private final Path file;
+    private final long lastModified;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<LoadableImage> images = new ArrayList<>();
+
+    private ImagePack(Path file) throws IOException {
+        this.file = file;
+        this.lastModified = Files.getLastModifiedTime(file).toMillis();
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+
+        // A mapping is limited to 2 GiB, so larger packs are mapped in overlapping segments
+        for (long start = 0; start < size; start += SEGMENT_SIZE) {
+            long length = Math.min(size - start, SEGMENT_SIZE + MAX_IMAGE_SIZE);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segments.add(segment);
+        }
+        readIndex(size);
+    }
+
+    /**
+     * Opens and maps a pack file and reads its index.
+     *
+     * @param file The pack file.
+     * @return The opened pack.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a pack file.
+     */
+    public static ImagePack open(Path file) throws IOException {
+        return new ImagePack(file);
+    }
+
+    /**
+     * Returns all images of the pack. The images are decoded from the mapped pack file when they are loaded.
+     *
+     * @return The images in the order they were packed.
+     */
+    public List<LoadableImage> getImages() {
+        return images;
+    }
+
+    /**
+     * Returns the modification time of the pack file when it was opened, which changes whenever the pack is rewritten.
+     *
+     * @return The modification time in milliseconds since the epoch.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the encoded bytes of a packed image as a slice of the mapped file, without copying them.
+     *
+     * @param entry The index entry of the image.
+     * @return A read-only direct buffer containing the encoded image file.
+     */
+    public ByteBuffer slice(Entry entry) {
+        int segment = (int) (entry.offset() / SEGMENT_SIZE);
+        int position = (int) (entry.offset() - segment * SEGMENT_SIZE);
+        return segments.get(segment).slice(position, entry.length());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readIndex(long size) {
+        ByteBuffer header = segments.isEmpty() ? ByteBuffer.allocate(0) : segments.get(0).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (size < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not an image pack file: " + file);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported image pack version " + version + " in " + file);
+        }
+        long indexOffset = header.getLong();
+
+        ByteBuffer index = readAt(indexOffset, (int) (size - indexOffset));
+        int count = index.getInt();
+        for (int i = 0; i < count; i++) {
+            long offset = index.getLong();
+            int length = index.getInt();
+            SignClassification classification = SignClassification.values()[index.getInt()];
+            byte[] path = new byte[index.getInt()];
+            index.get(path);
+            images.add(new LoadableImage(new String(path, StandardCharsets.UTF_8), classification, new Entry(this, offset, length)));
+        }
+    }
+
+    private ByteBuffer readAt(long offset, int length) {
+        int segment = (int) (offset / SEGMENT_SIZE);
+        int position = (int) (offset - segment * SEGMENT_SIZE);
+        if (position + (long) length <= segments.get(segment).capacity()) {
+            return segments.get(segment).slice(position, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        // The index of very large packs may span several segments, read it through the channel
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IllegalArgumentException("Unexpected end of image pack file: " + file);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading the index of " + file, e);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * The location of a single encoded image in a pack file.
+     *
+     * @param pack   The pack containing the image.
+     * @param offset The position of the encoded image in the pack file.
+     * @param length The size of the encoded image in bytes.
+     */
+    public record Entry(ImagePack pack, long offset, int length) {
+
+        /**
+         * @return The encoded image as a slice of the mapped pack file.
+         */
+        public ByteBuffer slice() {
+            return pack.slice(this);
+        }
+    }
+}
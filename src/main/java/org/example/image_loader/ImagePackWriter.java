@@ -0,0 +1,89 @@
+package org.example.image_loader;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Packs all images of a corpus directory into a single {@link ImagePack} file.
+ *
+ * <p>The images are stored as they are, still encoded, so the pack is about as large as the corpus. Reading the pack
+ * avoids opening thousands of small files when a dataset is regenerated.</p>
+ */
+public class ImagePackWriter {
+
+    /**
+     * Writes all images of a corpus directory into a pack file.
+     *
+     * @param corpusDir The corpus directory, which contains one child directory per classification.
+     * @param packFile  The pack file to write. An existing file is overwritten.
+     * @return The number of packed images.
+     */
+    public int pack(File corpusDir, Path packFile) {
+        List<LoadableImage> images = ImageLoader.findImagesInCorpus(corpusDir);
+        long[] offsets = new long[images.size()];
+        int[] lengths = new int[images.size()];
+
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(packFile), 1 << 20)) {
+            output.write(header(0));
+            long position = ImagePack.HEADER_SIZE;
+            for (int i = 0; i < images.size(); i++) {
+                byte[] bytes = Files.readAllBytes(Path.of(images.get(i).path()));
+                if (bytes.length > ImagePack.MAX_IMAGE_SIZE) {
+                    throw new IllegalArgumentException("Image is too large to be packed: " + images.get(i).path());
+                }
+                output.write(bytes);
+                offsets[i] = position;
+                lengths[i] = bytes.length;
+                position += bytes.length;
+            }
+            output.write(index(images, offsets, lengths));
+            output.flush();
+
+            // The index offset is only known after all images are written
+            try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(header(position)), 0);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the image pack " + packFile, e);
+        }
+        return images.size();
+    }
+
+    private static byte[] header(long indexOffset) {
+        return ByteBuffer.allocate(ImagePack.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(ImagePack.MAGIC)
+                .putInt(ImagePack.VERSION)
+                .putLong(indexOffset)
+                .array();
+    }
+
+    private static byte[] index(List<LoadableImage> images, long[] offsets, int[] lengths) {
+        byte[][] paths = new byte[images.size()][];
+        int size = Integer.BYTES;
+        for (int i = 0; i < images.size(); i++) {
+            paths[i] = images.get(i).path().getBytes(StandardCharsets.UTF_8);
+            size += Long.BYTES + 3 * Integer.BYTES + paths[i].length;
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        index.putInt(images.size());
+        for (int i = 0; i < images.size(); i++) {
+            index.putLong(offsets[i])
+                    .putInt(lengths[i])
+                    .putInt(images.get(i).classification().ordinal())
+                    .putInt(paths[i].length)
+                    .put(paths[i]);
+        }
+        return index.array();
+    }
+}
@@ -6,11 +6,25 @@ import org.opencv.core.Mat;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
-public record LoadableImage(String path, SignClassification classification) implements Comparable<LoadableImage> {
+import java.util.Objects;
+
+/**
+ * An image of the corpus that is loaded on demand.
+ *
+ * @param path           The path of the image file.
+ * @param classification The classification of the sign shown in the image.
+ * @param packEntry      The location of the encoded image in an {@link ImagePack}, or {@code null} if the image is read
+ *                       from its own file.
+ */
+public record LoadableImage(String path, SignClassification classification, ImagePack.Entry packEntry) implements Comparable<LoadableImage> {
+
+    public LoadableImage(String path, SignClassification classification) {
+        this(path, classification, null);
+    }
 
     public Mat loadMaterial() {
         try {
-            Mat image = Imgcodecs.imread(path);
+            Mat image = packEntry == null ? Imgcodecs.imread(path) : decodeFromPack();
             if (image.empty()) {
                 return Mat.zeros(1, 1,  CvType.CV_8UC4);
             }
@@ -21,13 +35,52 @@ public record LoadableImage(String path, SignClassification classification) impl
         }
     }
 
+    private Mat decodeFromPack() {
+        // Wraps the mapped bytes without copying them, imdecode reads them directly from the page cache
+        Mat encoded = new Mat(1, packEntry.length(), CvType.CV_8UC1, packEntry.slice());
+        try {
+            return Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_COLOR);
+        } finally {
+            encoded.release();
+        }
+    }
+
+    /**
+     * Images are equal if they have the same path and classification, wherever their bytes are read from, so an
+     * image loaded from a pack is equal to the same image loaded from its own file.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LoadableImage other && Objects.equals(path, other.path) && classification == other.classification;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, classification);
+    }
+
+    /**
+     * Orders images by a scrambled hash of their path, so that the split into training and testing images is the same
+     * in every run and for images loaded from a pack or from their own files. The path order itself would group the
+     * images by their class directory, the hash order mixes the classes.
+     */
     @Override
     public int compareTo(LoadableImage o) {
-        int aHash = this.hashCode();
-        int bHash = o.hashCode();
-        if (aHash == bHash) {
-            return 0;
-        }
-        return aHash > bHash ? 1 : -1;
+        int order = Long.compare(pathOrderKey(path), pathOrderKey(o.path));
+        return order != 0 ? order : path.compareTo(o.path);
+    }
+
+    /**
+     * Spreads the hash of the path over 64 bits (the finalizer of MurmurHash3), so that paths sharing a long prefix are
+     * not ordered by their last characters.
+     */
+    private static long pathOrderKey(String path) {
+        long key = path.hashCode();
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
     }
 }
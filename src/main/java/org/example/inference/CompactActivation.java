@@ -0,0 +1,88 @@
+package org.example.inference;
+
+/**
+ * The activation functions supported by the {@link CompactModel}.
+ * Each function mirrors the forward pass of the corresponding ND4J activation, so that a compact model produces
+ * the same outputs as the {@code MultiLayerNetwork} it was exported from.
+ */
+public enum CompactActivation {
+    IDENTITY,
+    RELU,
+    SIGMOID,
+    TANH,
+    HARDTANH,
+    HARDSIGMOID,
+    SOFTMAX,
+    SELU,
+    ELU,
+    SOFTPLUS,
+    SWISH,
+    GELU,
+    MISH,
+    /**
+     * The {@code ParametricSigmoid} activation, the parameter of the layer is its {@code k}.
+     */
+    PARAMETRIC_SIGMOID;
+
+    private static final double SELU_ALPHA = 1.6732632423543772848170429916717;
+    private static final double SELU_LAMBDA = 1.0507009873554804934193349852946;
+
+    /**
+     * Applies the activation function in place.
+     *
+     * @param values    The pre-activation values of a layer, overwritten with the activations.
+     * @param parameter The parameter of the activation function, only used by {@link #PARAMETRIC_SIGMOID}.
+     */
+    public void apply(float[] values, float parameter) {
+        if (this == SOFTMAX) {
+            applySoftmax(values);
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) apply(values[i], parameter);
+        }
+    }
+
+    private double apply(double x, double parameter) {
+        return switch (this) {
+            case IDENTITY -> x;
+            case RELU -> Math.max(0.0, x);
+            case SIGMOID -> sigmoid(x);
+            case TANH -> Math.tanh(x);
+            case HARDTANH -> Math.max(-1.0, Math.min(1.0, x));
+            case HARDSIGMOID -> Math.max(0.0, Math.min(1.0, 0.2 * x + 0.5));
+            case SELU -> x > 0 ? SELU_LAMBDA * x : SELU_LAMBDA * SELU_ALPHA * (Math.exp(x) - 1.0);
+            case ELU -> x > 0 ? x : Math.exp(x) - 1.0;
+            case SOFTPLUS -> softplus(x);
+            case SWISH -> x * sigmoid(x);
+            case GELU -> x * sigmoid(1.702 * x); // sigmoid approximation, as used by ND4J unless precise mode is set
+            case MISH -> x * Math.tanh(softplus(x));
+            // ParametricSigmoid.getActivation computes 1 / (1 + exp(k * x))
+            case PARAMETRIC_SIGMOID -> 1.0 / (1.0 + Math.exp(parameter * x));
+            case SOFTMAX -> throw new IllegalStateException("Softmax is applied to the whole layer");
+        };
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    private static double softplus(double x) {
+        return x > 20.0 ? x : Math.log1p(Math.exp(x));
+    }
+
+    private static void applySoftmax(float[] values) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (float value : values) {
+            max = Math.max(max, value);
+        }
+        double sum = 0.0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) Math.exp(values[i] - max);
+            sum += values[i];
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) (values[i] / sum);
+        }
+    }
+}
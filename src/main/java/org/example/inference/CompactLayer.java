@@ -0,0 +1,102 @@
+package org.example.inference;
+
+/**
+ * A fully connected layer of a {@link CompactModel}.
+ *
+ * @param inputSize           The number of inputs of the layer.
+ * @param outputSize          The number of neurons of the layer.
+ * @param weights             The weights in row-major order {@code [outputSize][inputSize]}, so that the weights of
+ *                            one neuron are contiguous, or {@code null} if the layer only keeps sparse weights.
+ * @param biases              The bias of every neuron.
+ * @param activation          The activation function of the layer.
+ * @param activationParameter The parameter of the activation function, e.g. the {@code k} of a parametric sigmoid.
+ * @param sparseWeights       The weights in CSR format, used by the forward pass if set, or {@code null} for a
+ *                            dense forward pass.
+ */
+public record CompactLayer(int inputSize, int outputSize, float[] weights, float[] biases,
+                           CompactActivation activation, float activationParameter, SparseWeights sparseWeights) {
+
+    public CompactLayer(int inputSize, int outputSize, float[] weights, float[] biases,
+                        CompactActivation activation, float activationParameter) {
+        this(inputSize, outputSize, weights, biases, activation, activationParameter, null);
+    }
+
+    public CompactLayer {
+        if (weights == null && sparseWeights == null) {
+            throw new IllegalArgumentException("Either dense or sparse weights must be set");
+        }
+        if (weights != null && weights.length != inputSize * outputSize) {
+            throw new IllegalArgumentException("Expected " + inputSize * outputSize + " weights but got " + weights.length);
+        }
+        if (biases.length != outputSize) {
+            throw new IllegalArgumentException("Expected " + outputSize + " biases but got " + biases.length);
+        }
+        if (sparseWeights != null && sparseWeights.rowPointers().length != outputSize + 1) {
+            throw new IllegalArgumentException("The sparse weights do not have " + outputSize + " rows");
+        }
+    }
+
+    /**
+     * Returns a copy of this layer whose forward pass skips the weights that are zero, e.g. after pruning. The copy
+     * only keeps the CSR weights, so it does not hold the dense weights as well.
+     *
+     * @return The layer with CSR weights.
+     */
+    public CompactLayer toSparse() {
+        return new CompactLayer(inputSize, outputSize, null, biases, activation, activationParameter,
+                SparseWeights.fromDense(denseWeights(), outputSize, inputSize));
+    }
+
+    /**
+     * Returns the weights in row-major order, expanded from the CSR weights on every call for sparse layers.
+     *
+     * @return The dense weights {@code [outputSize][inputSize]}.
+     */
+    public float[] denseWeights() {
+        return weights != null ? weights : sparseWeights.toDense(inputSize);
+    }
+
+    /**
+     * @return The fraction of weights that are not zero.
+     */
+    public double density() {
+        if (sparseWeights != null) {
+            return sparseWeights.nonZeroCount() / ((double) inputSize * outputSize);
+        }
+        int nonZero = 0;
+        for (float weight : weights) {
+            nonZero += weight != 0f ? 1 : 0;
+        }
+        return nonZero / (double) weights.length;
+    }
+
+    /**
+     * Computes the activations of the layer for a single input.
+     *
+     * @param input The input of the layer.
+     * @return The activations of the layer.
+     */
+    public float[] forward(float[] input) {
+        if (input.length != inputSize) {
+            throw new IllegalArgumentException("Expected an input of size " + inputSize + " but got " + input.length);
+        }
+        float[] output = new float[outputSize];
+        if (sparseWeights != null) {
+            for (int neuron = 0; neuron < outputSize; neuron++) {
+                output[neuron] = biases[neuron] + sparseWeights.dot(neuron, input);
+            }
+            activation.apply(output, activationParameter);
+            return output;
+        }
+        for (int neuron = 0; neuron < outputSize; neuron++) {
+            int offset = neuron * inputSize;
+            float sum = biases[neuron];
+            for (int i = 0; i < inputSize; i++) {
+                sum += weights[offset + i] * input[i];
+            }
+            output[neuron] = sum;
+        }
+        activation.apply(output, activationParameter);
+        return output;
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.inference;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A dependency-free inference engine for dense networks exported by the {@code CompactModelExporter}.
+ *
+ * <p>The model is loaded from a compact file via memory mapping and evaluated with plain Java loops, so predictions
+ * do not require the ND4J native backend. The file layout (little endian) is:</p>
+ * <pre>
+ * int magic, int version, int quantization, int layerCount
+ * per layer: int inputSize, int outputSize, int activation, float activationParameter, int storage (version 2),
+ *            dense storage: [INT8 only: float scale per output neuron], weights [outputSize][inputSize]
+ *            CSR storage:   int nonZeroCount, int rowPointers [outputSize + 1],
+ *                           column indices [nonZeroCount] (unsigned short if inputSize &lt;= 65536, int otherwise),
+ *                           [INT8 only: float scale per output neuron], non-zero weights [nonZeroCount]
+ *            float bias per output neuron
+ * </pre>
+ * <p>Version 1 files have no storage field and always store dense weights.</p>
+ */
+public class CompactModel {
+    static final int MAGIC = 0x534D4F44; // "SMOD"
+    static final int VERSION = 2;
+    static final int DENSE_STORAGE = 0;
+    static final int CSR_STORAGE = 1;
+
+    private final List<CompactLayer> layers;
+
+    public CompactModel(List<CompactLayer> layers) {
+        if (layers.isEmpty()) {
+            throw new IllegalArgumentException("A compact model needs at least one layer");
+        }
+        for (int i = 1; i < layers.size(); i++) {
+            if (layers.get(i).inputSize() != layers.get(i - 1).outputSize()) {
+                throw new IllegalArgumentException("Input size of layer " + i + " does not match the previous layer");
+            }
+        }
+        this.layers = List.copyOf(layers);
+    }
+
+    /**
+     * Loads a compact model file via memory mapping.
+     *
+     * @param file The compact model file.
+     * @return The loaded model.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is not a compact model file.
+     */
+    public static CompactModel load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a compact model file: " + file);
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IllegalArgumentException("Unsupported compact model version " + version + " in " + file);
+            }
+            Quantization quantization = Quantization.values()[buffer.getInt()];
+            int layerCount = buffer.getInt();
+
+            List<CompactLayer> layers = new ArrayList<>(layerCount);
+            for (int l = 0; l < layerCount; l++) {
+                int inputSize = buffer.getInt();
+                int outputSize = buffer.getInt();
+                CompactActivation activation = CompactActivation.values()[buffer.getInt()];
+                float activationParameter = buffer.getFloat();
+
+                int storage = version >= 2 ? buffer.getInt() : DENSE_STORAGE;
+
+                float[] weights;
+                SparseWeights sparseWeights = null;
+                if (storage == CSR_STORAGE) {
+                    int nonZeroCount = buffer.getInt();
+                    int[] rowPointers = new int[outputSize + 1];
+                    for (int i = 0; i < rowPointers.length; i++) {
+                        rowPointers[i] = buffer.getInt();
+                    }
+                    int[] columnIndices = new int[nonZeroCount];
+                    for (int i = 0; i < nonZeroCount; i++) {
+                        columnIndices[i] = hasShortIndices(inputSize) ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+                    }
+                    sparseWeights = new SparseWeights(rowPointers, columnIndices, readWeights(buffer, quantization, rowPointers));
+                    weights = null; // the forward pass only needs the CSR weights
+                } else {
+                    weights = readWeights(buffer, quantization, denseRowPointers(outputSize, inputSize));
+                }
+
+                float[] biases = new float[outputSize];
+                for (int neuron = 0; neuron < outputSize; neuron++) {
+                    biases[neuron] = buffer.getFloat();
+                }
+                layers.add(new CompactLayer(inputSize, outputSize, weights, biases, activation, activationParameter, sparseWeights));
+            }
+            return new CompactModel(layers);
+        }
+    }
+
+    /**
+     * Returns a copy of this model in which every layer with at most the given fraction of non-zero weights uses a
+     * sparse forward pass and is written in CSR format.
+     *
+     * @param maxDensity The maximum fraction of non-zero weights of a layer to be converted, e.g. 0.5.
+     * @return The model with sparse layers.
+     */
+    public CompactModel withSparseLayers(double maxDensity) {
+        List<CompactLayer> converted = new ArrayList<>();
+        for (CompactLayer layer : layers) {
+            converted.add(layer.sparseWeights() == null && layer.density() <= maxDensity ? layer.toSparse() : layer);
+        }
+        return new CompactModel(converted);
+    }
+
+    /**
+     * Computes the output of the network (e.g. the class probabilities) for a single input.
+     *
+     * @param input The flattened input features, in the same layout as used for training.
+     * @return The output of the last layer.
+     */
+    public float[] predict(float[] input) {
+        float[] activations = input;
+        for (CompactLayer layer : layers) {
+            activations = layer.forward(activations);
+        }
+        return activations;
+    }
+
+    /**
+     * Classifies a single input.
+     *
+     * @param input The flattened input features.
+     * @return The index of the output with the highest value.
+     */
+    public int classify(float[] input) {
+        float[] output = predict(input);
+        int best = 0;
+        for (int i = 1; i < output.length; i++) {
+            if (output[i] > output[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Reads weights stored row by row. The row pointers give the first weight of every row, so the per-neuron scales
+     * of INT8 weights can be applied.
+     */
+    private static float[] readWeights(ByteBuffer buffer, Quantization quantization, int[] rowPointers) {
+        int rows = rowPointers.length - 1;
+        float[] weights = new float[rowPointers[rows]];
+        if (quantization == Quantization.FLOAT16) {
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = HalfPrecision.toFloat(buffer.getShort());
+            }
+            return weights;
+        }
+        float[] scales = new float[rows];
+        for (int row = 0; row < rows; row++) {
+            scales[row] = buffer.getFloat();
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                weights[i] = buffer.get() * scales[row];
+            }
+        }
+        return weights;
+    }
+
+    static int[] denseRowPointers(int rows, int cols) {
+        int[] rowPointers = new int[rows + 1];
+        for (int row = 0; row <= rows; row++) {
+            rowPointers[row] = row * cols;
+        }
+        return rowPointers;
+    }
+
+    static boolean hasShortIndices(int inputSize) {
+        return inputSize <= 65536;
+    }
+
+    public List<CompactLayer> getLayers() {
+        return layers;
+    }
+
+    public int getInputSize() {
+        return layers.get(0).inputSize();
+    }
+
+    public int getOutputSize() {
+        return layers.get(layers.size() - 1).outputSize();
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.inference;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes {@link CompactLayer}s to the compact model file format read by {@link CompactModel#load(Path)}.
+ */
+public class CompactModelWriter {
+    private final Quantization quantization;
+
+    public CompactModelWriter(Quantization quantization) {
+        this.quantization = quantization;
+    }
+
+    /**
+     * Writes the given model to a file, quantizing the weights with the configured {@link Quantization}.
+     *
+     * @param model The model to write.
+     * @param file  The target file, overwritten if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(CompactModel model, Path file) throws IOException {
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file))) {
+            writeInt(stream, CompactModel.MAGIC);
+            writeInt(stream, CompactModel.VERSION);
+            writeInt(stream, quantization.ordinal());
+            writeInt(stream, model.getLayers().size());
+
+            for (CompactLayer layer : model.getLayers()) {
+                writeInt(stream, layer.inputSize());
+                writeInt(stream, layer.outputSize());
+                writeInt(stream, layer.activation().ordinal());
+                writeFloat(stream, layer.activationParameter());
+                SparseWeights sparseWeights = layer.sparseWeights();
+                if (sparseWeights == null) {
+                    writeInt(stream, CompactModel.DENSE_STORAGE);
+                    writeWeights(stream, layer.weights(), CompactModel.denseRowPointers(layer.outputSize(), layer.inputSize()));
+                } else {
+                    writeInt(stream, CompactModel.CSR_STORAGE);
+                    writeInt(stream, sparseWeights.nonZeroCount());
+                    for (int rowPointer : sparseWeights.rowPointers()) {
+                        writeInt(stream, rowPointer);
+                    }
+                    writeColumnIndices(stream, sparseWeights.columnIndices(), layer.inputSize());
+                    writeWeights(stream, sparseWeights.values(), sparseWeights.rowPointers());
+                }
+                for (float bias : layer.biases()) {
+                    writeFloat(stream, bias);
+                }
+            }
+        }
+    }
+
+    private void writeWeights(OutputStream stream, float[] weights, int[] rowPointers) throws IOException {
+        if (quantization == Quantization.FLOAT16) {
+            writeFloat16Weights(stream, weights);
+        } else {
+            writeInt8Weights(stream, weights, rowPointers);
+        }
+    }
+
+    private static void writeFloat16Weights(OutputStream stream, float[] weights) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(weights.length * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float weight : weights) {
+            buffer.putShort(HalfPrecision.fromFloat(weight));
+        }
+        stream.write(buffer.array());
+    }
+
+    /**
+     * Quantizes the weights symmetrically per output neuron, so that the largest absolute weight of a neuron maps to 127.
+     * The row pointers give the first weight of every neuron.
+     */
+    private static void writeInt8Weights(OutputStream stream, float[] weights, int[] rowPointers) throws IOException {
+        int rows = rowPointers.length - 1;
+        byte[] quantized = new byte[weights.length];
+        for (int row = 0; row < rows; row++) {
+            float maxAbs = 0f;
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                maxAbs = Math.max(maxAbs, Math.abs(weights[i]));
+            }
+            float scale = maxAbs > 0f ? maxAbs / 127f : 1f;
+            writeFloat(stream, scale);
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                quantized[i] = (byte) Math.max(-127, Math.min(127, Math.round(weights[i] / scale)));
+            }
+        }
+        stream.write(quantized);
+    }
+
+    private static void writeColumnIndices(OutputStream stream, int[] columnIndices, int inputSize) throws IOException {
+        boolean shortIndices = CompactModel.hasShortIndices(inputSize);
+        ByteBuffer buffer = ByteBuffer.allocate(columnIndices.length * (shortIndices ? Short.BYTES : Integer.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int columnIndex : columnIndices) {
+            if (shortIndices) {
+                buffer.putShort((short) columnIndex);
+            } else {
+                buffer.putInt(columnIndex);
+            }
+        }
+        stream.write(buffer.array());
+    }
+
+    private static void writeInt(OutputStream stream, int value) throws IOException {
+        stream.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array());
+    }
+
+    private static void writeFloat(OutputStream stream, float value) throws IOException {
+        writeInt(stream, Float.floatToIntBits(value));
+    }
+}
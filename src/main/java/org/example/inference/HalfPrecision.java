@@ -0,0 +1,71 @@
+package org.example.inference;
+
+/**
+ * Conversion between 32-bit floats and IEEE 754 half precision (float16) values stored in a {@code short}.
+ */
+public final class HalfPrecision {
+
+    private HalfPrecision() {
+    }
+
+    /**
+     * Converts a float to half precision, rounding to the nearest representable value.
+     *
+     * @param value The float value.
+     * @return The half precision bits.
+     */
+    public static short fromFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int rounded = (bits & 0x7fffffff) + 0x1000; // round to nearest
+
+        if (rounded >= 0x47800000) { // overflow, infinity or NaN
+            if ((bits & 0x7fffffff) >= 0x47800000) {
+                if ((bits & 0x7fffffff) < 0x7f800000) {
+                    return (short) (sign | 0x7c00); // too large, becomes infinity
+                }
+                return (short) (sign | 0x7c00 | (bits & 0x007fffff) >>> 13); // infinity or NaN
+            }
+            return (short) (sign | 0x7bff); // largest finite half
+        }
+        if (rounded >= 0x38800000) { // normalized half
+            return (short) (sign | rounded - 0x38000000 >>> 13);
+        }
+        if (rounded < 0x33000000) { // too small, becomes zero
+            return (short) sign;
+        }
+        // subnormal half
+        rounded = (bits & 0x7fffffff) >>> 23;
+        return (short) (sign | ((bits & 0x7fffff | 0x800000) + (0x800000 >>> rounded - 102) >>> 126 - rounded));
+    }
+
+    /**
+     * Converts half precision bits to a float.
+     *
+     * @param half The half precision bits.
+     * @return The float value.
+     */
+    public static float toFloat(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x03ff;
+
+        if (exponent == 0x1f) { // infinity or NaN
+            return Float.intBitsToFloat(sign | 0x7f800000 | mantissa << 13);
+        }
+        if (exponent == 0) {
+            if (mantissa == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            // subnormal half, normalize it
+            exponent = 1;
+            while ((mantissa & 0x0400) == 0) {
+                mantissa <<= 1;
+                exponent--;
+            }
+            mantissa &= 0x03ff;
+        }
+        return Float.intBitsToFloat(sign | (exponent + 112) << 23 | mantissa << 13);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.inference;
+
+/**
+ * The encoding of the weights in a compact model file.
+ */
+public enum Quantization {
+    /**
+     * Every weight is stored as an IEEE 754 half precision value (2 bytes per weight).
+     */
+    FLOAT16,
+    /**
+     * Every weight is stored as a signed byte, with one float scale per output neuron (1 byte per weight).
+     */
+    INT8
+}
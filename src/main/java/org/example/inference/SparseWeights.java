@@ -0,0 +1,91 @@
+package org.example.inference;
+
+/**
+ * The weights of a pruned {@link CompactLayer} in compressed sparse row (CSR) format, so that the forward pass only
+ * visits the weights that are not zero.
+ *
+ * @param rowPointers   The index of the first non-zero weight of every neuron in {@code columnIndices} and
+ *                      {@code values}, with one additional entry for the end of the last neuron.
+ * @param columnIndices The input index of every non-zero weight.
+ * @param values        The non-zero weights.
+ */
+public record SparseWeights(int[] rowPointers, int[] columnIndices, float[] values) {
+
+    public SparseWeights {
+        if (columnIndices.length != values.length || rowPointers[rowPointers.length - 1] != values.length) {
+            throw new IllegalArgumentException("The row pointers, column indices and values of the sparse weights do not match");
+        }
+    }
+
+    /**
+     * Converts dense row-major weights to the CSR format, dropping all weights that are exactly zero.
+     *
+     * @param weights   The weights in row-major order {@code [rows][cols]}.
+     * @param rows      The number of rows (neurons).
+     * @param cols      The number of columns (inputs).
+     * @return The sparse weights.
+     */
+    public static SparseWeights fromDense(float[] weights, int rows, int cols) {
+        int nonZero = 0;
+        for (float weight : weights) {
+            nonZero += weight != 0f ? 1 : 0;
+        }
+
+        int[] rowPointers = new int[rows + 1];
+        int[] columnIndices = new int[nonZero];
+        float[] values = new float[nonZero];
+        int next = 0;
+        for (int row = 0; row < rows; row++) {
+            rowPointers[row] = next;
+            for (int col = 0; col < cols; col++) {
+                float weight = weights[row * cols + col];
+                if (weight != 0f) {
+                    columnIndices[next] = col;
+                    values[next] = weight;
+                    next++;
+                }
+            }
+        }
+        rowPointers[rows] = next;
+        return new SparseWeights(rowPointers, columnIndices, values);
+    }
+
+    /**
+     * Expands the sparse weights to dense row-major weights.
+     *
+     * @param cols The number of columns (inputs).
+     * @return The weights in row-major order, with zeros for the pruned weights.
+     */
+    public float[] toDense(int cols) {
+        int rows = rowPointers.length - 1;
+        float[] weights = new float[rows * cols];
+        for (int row = 0; row < rows; row++) {
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                weights[row * cols + columnIndices[i]] = values[i];
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Computes the weighted sum of the inputs for one neuron.
+     *
+     * @param row   The neuron.
+     * @param input The input of the layer.
+     * @return The weighted sum without bias.
+     */
+    public float dot(int row, float[] input) {
+        float sum = 0f;
+        for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+            sum += values[i] * input[columnIndices[i]];
+        }
+        return sum;
+    }
+
+    /**
+     * @return The number of non-zero weights.
+     */
+    public int nonZeroCount() {
+        return values.length;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example;
+
+import nu.pattern.OpenCV;
+import org.example.benchmark.SyntheticSignGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageCropperTest {
+    private static final int IMAGE_SIZE = 256;
+    private static final int IMAGES_PER_CLASS = 3;
+
+    @BeforeAll
+    static void loadOpenCv() {
+        OpenCV.loadShared();
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {2.0, 4.0})
+    void proxyBoundsMatchFullResolutionBounds(double proxyScaleFactor) {
+        SyntheticSignGenerator generator = new SyntheticSignGenerator(3).withImageSize(IMAGE_SIZE);
+        // The bounding rectangle is rounded to whole pixels, which adds at most one pixel to the proxy error
+        int tolerance = (int) Math.ceil(proxyScaleFactor) + 1;
+        for (SignClassification classification : SignClassification.values()) {
+            for (int index = 0; index < IMAGES_PER_CLASS; index++) {
+                Mat bgr = generator.render(classification, index);
+                Mat rgba = new Mat();
+                Imgproc.cvtColor(bgr, rgba, Imgproc.COLOR_BGR2RGBA);
+                bgr.release();
+
+                Rect expected = new ImageCropper().findSignBounds(rgba);
+                Rect actual = new ImageCropper().withProxyScaleFactor(proxyScaleFactor).findSignBounds(rgba);
+                rgba.release();
+
+                String message = classification + " " + index + ": expected " + expected + " but got " + actual;
+                assertTrue(Math.abs(actual.x - expected.x) <= tolerance, message);
+                assertTrue(Math.abs(actual.y - expected.y) <= tolerance, message);
+                assertTrue(Math.abs(actual.br().x - expected.br().x) <= tolerance, message);
+                assertTrue(Math.abs(actual.br().y - expected.br().y) <= tolerance, message);
+            }
+        }
+    }
+}
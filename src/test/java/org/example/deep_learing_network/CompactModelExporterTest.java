@@ -0,0 +1,75 @@
+package org.example.deep_learing_network;
+
+import kotlin.Pair;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.example.inference.CompactModel;
+import org.example.inference.Quantization;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompactModelExporterTest {
+    private static final int INPUT_SIZE = 48;
+    private static final int OUTPUT_SIZE = 5;
+    private static final int EXAMPLES = 32;
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @EnumSource(Quantization.class)
+    void exportedModelMatchesNd4jOutputs(Quantization quantization) throws IOException {
+        MultiLayerNetwork model = createModelBuilder(List.of(new Pair<>(32, Activation.RELU), new Pair<>(16, Activation.TANH)))
+                .build();
+        assertParity(model, quantization, "model-" + quantization);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Quantization.class)
+    void exportedParametricSigmoidModelMatchesNd4jOutputs(Quantization quantization) throws IOException {
+        for (double k : new double[]{0.5, 3.0}) {
+            MultiLayerNetwork model = ModelBuilderWithParametricSigmoid.createFromDefaultModelBuilder(
+                            createModelBuilder(List.of(new Pair<>(32, Activation.SIGMOID), new Pair<>(16, Activation.SIGMOID))))
+                    .withAlpha(k)
+                    .build();
+            assertParity(model, quantization, "sigmoid-" + k + "-" + quantization);
+        }
+    }
+
+    private static ModelBuilder createModelBuilder(List<Pair<Integer, Activation>> hiddenLayerConfig) {
+        return new ModelBuilder()
+                .withInputSize(INPUT_SIZE)
+                .withOutputSize(OUTPUT_SIZE)
+                .withOutputLayerActivation(Activation.SOFTMAX)
+                .withHiddenLayerConfig(hiddenLayerConfig)
+                .withSeed(42);
+    }
+
+    private void assertParity(MultiLayerNetwork model, Quantization quantization, String name) throws IOException {
+        Path file = directory.resolve(name + ".smod");
+        new CompactModelExporter().export(model, file, quantization);
+        CompactModel compactModel = CompactModel.load(file);
+
+        Nd4j.getRandom().setSeed(7);
+        INDArray features = Nd4j.rand(DataType.FLOAT, EXAMPLES, INPUT_SIZE);
+        INDArray expected = model.output(features.castTo(model.params().dataType()), false).castTo(DataType.FLOAT);
+        float tolerance = quantization == Quantization.INT8 ? 2e-2f : 5e-3f;
+        for (int example = 0; example < EXAMPLES; example++) {
+            float[] input = features.getRow(example).toFloatVector();
+            float[] expectedOutput = expected.getRow(example).toFloatVector();
+            assertArrayEquals(expectedOutput, compactModel.predict(input), tolerance, name + ": outputs of example " + example);
+            assertEquals(expected.getRow(example).argMax().getInt(0), compactModel.classify(input), name + ": class of example " + example);
+        }
+    }
+}